@@ -0,0 +1,112 @@
+package com.subway.ticket.bench;
+
+import com.subway.ticket.service.graph.CompactGraph;
+import com.subway.ticket.service.graph.ContractionHierarchy;
+import com.subway.ticket.service.graph.PathResult;
+import com.subway.ticket.service.graph.SearchAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contraction hierarchy against the current on-demand searches on generated networks from
+ * Hangzhou size up to a large metropolitan region. Setup prints the preprocessing time,
+ * shortcut count and memory of the hierarchy, and the average nodes settled per query;
+ * {@code preprocess} measures the build itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContractionBenchmark {
+
+    // lines x stations per line
+    @Param({"40x30", "300x60", "1500x80"})
+    public String network;
+
+    private CompactGraph graph;
+    private ContractionHierarchy ch;
+    private int[][] starts;
+    private int[][] ends;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] size = network.split("x");
+        SyntheticNetwork net = new SyntheticNetwork(Integer.parseInt(size[0]), Integer.parseInt(size[1]), 7);
+        graph = net.snapshot().graph();
+
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        long before = rt.totalMemory() - rt.freeMemory();
+        ch = ContractionHierarchy.build(graph);
+        System.gc();
+        long retained = rt.totalMemory() - rt.freeMemory() - before;
+
+        String[][] pairs = net.randomNamePairs(1024, 42);
+        starts = new int[pairs.length][];
+        ends = new int[pairs.length][];
+        long settledDijkstra = 0;
+        long settledCh = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            starts[i] = graph.nodesByName(pairs[i][0]);
+            ends[i] = graph.nodesByName(pairs[i][1]);
+            PathResult expected = graph.findPath(starts[i], ends[i]);
+            PathResult actual = ch.findPath(starts[i], ends[i]);
+            if (expected != null) settledDijkstra += expected.settled;
+            if (actual != null) settledCh += actual.settled;
+            if ((expected == null) != (actual == null) || expected != null && expected.cost != actual.cost) {
+                throw new IllegalStateException("Hierarchy disagrees with Dijkstra for " + pairs[i][0] + " -> " + pairs[i][1]);
+            }
+        }
+        System.out.printf("%n%s: %d stations, %d nodes, %d arcs; hierarchy %d ms, %d shortcuts, %.1f MiB (%.1f MiB measured);"
+                        + " settled per query %d Dijkstra vs %d CH%n",
+                network, graph.stationCount(), graph.nodeCount(), graph.edgeCount(), ch.buildMillis(), ch.shortcutCount(),
+                ch.memoryBytes() / 1048576.0, retained / 1048576.0,
+                settledDijkstra / pairs.length, settledCh / pairs.length);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public PathResult dijkstra(Cursor c) {
+        int i = c.next++ & (starts.length - 1);
+        return graph.findPath(starts[i], ends[i]);
+    }
+
+    @Benchmark
+    public PathResult bidirectional(Cursor c) {
+        int i = c.next++ & (starts.length - 1);
+        return graph.findPath(starts[i], ends[i], SearchAlgorithm.BIDIRECTIONAL);
+    }
+
+    @Benchmark
+    public PathResult contraction(Cursor c) {
+        int i = c.next++ & (starts.length - 1);
+        return ch.findPath(starts[i], ends[i]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public ContractionHierarchy preprocess() {
+        return ContractionHierarchy.build(graph);
+    }
+}
@@ -0,0 +1,58 @@
+package com.subway.ticket.bench;
+
+import com.subway.ticket.dto.FareQuote;
+import com.subway.ticket.service.FareService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full FareService quote path (station lookup, route, price, RouteStep building) with the
+ * quote cache off, so every call does the work, and on, to show the steady-state hit path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FareBenchmark {
+
+    @Param({"off", "on"})
+    public String allPairs;
+
+    @Param({"false", "true"})
+    public boolean cache;
+
+    private FareService fareService;
+    private String[][] codePairs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        HangzhouNetwork network = new HangzhouNetwork(allPairs);
+        fareService = network.fareService(cache);
+        codePairs = network.randomCodePairs(4096, 7);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public FareQuote calculateFare(Cursor cursor) {
+        String[] pair = codePairs[cursor.next++ & (codePairs.length - 1)];
+        return fareService.calculateFare(pair[0], pair[1]);
+    }
+}
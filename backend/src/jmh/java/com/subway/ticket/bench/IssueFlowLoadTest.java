@@ -0,0 +1,199 @@
+package com.subway.ticket.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop HTTP load test against a running backend. Each simulated passenger repeats the
+ * whole purchase flow: create order, mock payment, fetch QR code, gate validate, issue ticket.
+ * Every step blocks on JDBC, so running it once against the default (platform thread) mode and
+ * once with {@code SUBWAY_VIRTUAL_THREADS=true} compares the two execution modes.
+ * <p>
+ * Options: {@code --url=http://localhost:8080 --users=200 --duration=30 --warmup=5 --label=platform}
+ */
+public final class IssueFlowLoadTest {
+
+    private static final String[] STEPS = {"order", "pay", "qrcode", "validate", "issue"};
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final HttpClient http;
+    private final String url;
+    private final List<String> codes;
+
+    private IssueFlowLoadTest(String url) throws Exception {
+        this.url = url;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.codes = new ArrayList<>();
+        for (JsonNode s : get("/api/stations/all")) {
+            codes.add(s.path("code").asText());
+        }
+        if (codes.size() < 2) throw new IllegalStateException("Backend at " + url + " has no stations");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new LinkedHashMap<>();
+        opts.put("url", "http://localhost:8080");
+        opts.put("users", "200");
+        opts.put("duration", "30");
+        opts.put("warmup", "5");
+        opts.put("label", "backend");
+        for (String a : args) {
+            String[] kv = a.replaceFirst("^--", "").split("=", 2);
+            if (kv.length == 2) opts.put(kv[0], kv[1]);
+        }
+        System.out.println("Options: " + opts);
+
+        IssueFlowLoadTest test = new IssueFlowLoadTest(opts.get("url"));
+        int users = Integer.parseInt(opts.get("users"));
+        if (Integer.parseInt(opts.get("warmup")) > 0) {
+            test.run(users, Integer.parseInt(opts.get("warmup")));
+        }
+        Recorder total = test.run(users, Integer.parseInt(opts.get("duration")));
+        total.print(opts.get("label"), Integer.parseInt(opts.get("duration")));
+    }
+
+    private Recorder run(int users, int seconds) throws Exception {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Future<Recorder>> futures = new ArrayList<>();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < users; i++) {
+                futures.add(pool.submit(() -> passenger(deadline)));
+            }
+        }
+        Recorder total = new Recorder();
+        for (Future<Recorder> f : futures) total.merge(f.get());
+        return total;
+    }
+
+    private Recorder passenger(long deadline) {
+        Recorder r = new Recorder();
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            long flowStart = System.nanoTime();
+            try {
+                String from = codes.get(rnd.nextInt(codes.size()));
+                String pick = codes.get(rnd.nextInt(codes.size()));
+                while (pick.equals(from)) pick = codes.get(rnd.nextInt(codes.size()));
+                String to = pick;
+
+                JsonNode order = timed(r, 0, () -> post("/api/orders", Map.of("from", from, "to", to)));
+                long orderId = order.path("id").asLong();
+                timed(r, 1, () -> post("/api/payments/mock", Map.of("orderId", orderId)));
+                JsonNode qr = timed(r, 2, () -> get("/api/orders/" + orderId + "/qrcode"));
+                JsonNode valid = timed(r, 3, () -> post("/api/kiosk/validate", qr));
+                if (!valid.path("valid").asBoolean()) throw new IllegalStateException("validate: " + valid.path("reason").asText());
+                timed(r, 4, () -> post("/api/tickets/issue", qr));
+                r.flows.add(System.nanoTime() - flowStart);
+            } catch (Exception e) {
+                r.failedFlows++;
+            }
+        }
+        return r;
+    }
+
+    private JsonNode timed(Recorder r, int step, Call call) throws Exception {
+        long start = System.nanoTime();
+        try {
+            JsonNode result = call.run();
+            r.steps[step].add(System.nanoTime() - start);
+            return result;
+        } catch (Exception e) {
+            r.errors[step]++;
+            throw e;
+        }
+    }
+
+    private JsonNode get(String path) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(url + path)).GET());
+    }
+
+    private JsonNode post(String path, Object body) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(url + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(json.writeValueAsBytes(body))));
+    }
+
+    private JsonNode send(HttpRequest.Builder req) throws Exception {
+        HttpResponse<byte[]> resp = http.send(req.timeout(Duration.ofSeconds(60)).build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (resp.statusCode() != 200) throw new IllegalStateException("HTTP " + resp.statusCode());
+        return json.readTree(resp.body());
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        JsonNode run() throws Exception;
+    }
+
+    private static final class Recorder {
+        final Samples flows = new Samples();
+        final Samples[] steps = new Samples[STEPS.length];
+        final long[] errors = new long[STEPS.length];
+        long failedFlows;
+
+        Recorder() {
+            for (int i = 0; i < steps.length; i++) steps[i] = new Samples();
+        }
+
+        void merge(Recorder o) {
+            flows.addAll(o.flows);
+            for (int i = 0; i < steps.length; i++) {
+                steps[i].addAll(o.steps[i]);
+                errors[i] += o.errors[i];
+            }
+            failedFlows += o.failedFlows;
+        }
+
+        void print(String label, int seconds) {
+            System.out.printf("%n[%s] %d flows in %d s (%.1f flows/s), %d failed%n",
+                    label, flows.size, seconds, flows.size / (double) seconds, failedFlows);
+            System.out.printf("%-10s %9s %7s %9s %9s %9s %9s%n", "step", "ok", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms");
+            flows.print("flow", 0);
+            for (int i = 0; i < steps.length; i++) steps[i].print(STEPS[i], errors[i]);
+        }
+    }
+
+    private static final class Samples {
+        long[] nanos = new long[1024];
+        int size;
+
+        void add(long v) {
+            if (size == nanos.length) nanos = Arrays.copyOf(nanos, size * 2);
+            nanos[size++] = v;
+        }
+
+        void addAll(Samples o) {
+            for (int i = 0; i < o.size; i++) add(o.nanos[i]);
+        }
+
+        void print(String name, long errors) {
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            System.out.printf("%-10s %9d %7d %9.1f %9.1f %9.1f %9.1f%n", name, size, errors,
+                    pct(sorted, 0.50), pct(sorted, 0.95), pct(sorted, 0.99), pct(sorted, 1.0));
+        }
+
+        private static double pct(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            int i = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+            return sorted[Math.max(0, i)] / 1e6;
+        }
+    }
+}
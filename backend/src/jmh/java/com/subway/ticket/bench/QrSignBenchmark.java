@@ -0,0 +1,64 @@
+package com.subway.ticket.bench;
+
+import com.subway.ticket.service.QrSignService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HMAC-SHA256 signing and verification of the QR payload used at the kiosk gate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QrSignBenchmark {
+
+    private QrSignService signer;
+    private String data;
+    private String signature;
+    private final long orderId = 123456L;
+    private final String nonce = "3f2504e0-4f89-11d3-9a0c-0305e82c3301";
+    private final long exp = 1760000000L;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        signer = new QrSignService("bench-secret", new SimpleMeterRegistry());
+        data = orderId + ":" + nonce + ":" + exp;
+        signature = signer.sign(data);
+    }
+
+    @Benchmark
+    public String sign() {
+        return signer.sign(data);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return signer.verify(data, signature);
+    }
+
+    // Gate path: fields are written straight into the pooled buffer, no joined String
+    @Benchmark
+    public String signPayload() {
+        return signer.sign(orderId, nonce, exp);
+    }
+
+    @Benchmark
+    public boolean verifyPayload() {
+        return signer.verify(orderId, nonce, exp, signature);
+    }
+}
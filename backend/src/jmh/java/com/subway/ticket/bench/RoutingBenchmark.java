@@ -0,0 +1,116 @@
+package com.subway.ticket.bench;
+
+import com.subway.ticket.service.graph.CompactGraph;
+import com.subway.ticket.service.graph.GraphSnapshot;
+import com.subway.ticket.service.graph.ParetoSearch;
+import com.subway.ticket.service.graph.PathResult;
+import com.subway.ticket.service.graph.SearchAlgorithm;
+import com.subway.ticket.service.graph.ShortestPathTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route search on the Hangzhou network: random station pairs, the longest pair in the
+ * network, a full one-to-all expansion and the multi-criteria (Pareto) search. Run with -t 1 and -t max for single- and
+ * multi-threaded throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoutingBenchmark {
+
+    // "off" = on-demand Dijkstra, "on" = all-pairs table lookup
+    @Param({"off", "on"})
+    public String allPairs;
+
+    private GraphSnapshot snapshot;
+    private CompactGraph graph;
+    private String[][] namePairs;
+    private String longFrom;
+    private String longTo;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        HangzhouNetwork network = new HangzhouNetwork(allPairs);
+        snapshot = network.snapshot();
+        graph = snapshot.graph();
+
+        String[][] codes = network.randomCodePairs(4096, 42);
+        namePairs = new String[codes.length][];
+        for (int i = 0; i < codes.length; i++) {
+            namePairs[i] = new String[]{
+                    snapshot.stations().byCode(codes[i][0]).getName(),
+                    snapshot.stations().byCode(codes[i][1]).getName()};
+        }
+
+        // Worst case: the station pair with the highest search cost
+        int worst = -1;
+        for (String from : graph.stationNames()) {
+            ShortestPathTree tree = graph.shortestPathTree(graph.nodesByName(from));
+            for (String to : graph.stationNames()) {
+                int best = tree.best(graph.nodesByName(to));
+                if (best >= 0 && tree.cost(best) > worst) {
+                    worst = tree.cost(best);
+                    longFrom = from;
+                    longTo = to;
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public PathResult randomPair(Cursor cursor) {
+        String[] pair = namePairs[cursor.next++ & (namePairs.length - 1)];
+        return snapshot.findPath(pair[0], pair[1]);
+    }
+
+    @Benchmark
+    public PathResult longestRoute() {
+        return snapshot.findPath(longFrom, longTo);
+    }
+
+    // Point-to-point alternatives on the same worst-case pair; they return the same route
+    @Benchmark
+    public PathResult longestRouteAStar() {
+        return graph.findPath(graph.nodesByName(longFrom), graph.nodesByName(longTo), SearchAlgorithm.ASTAR);
+    }
+
+    @Benchmark
+    public PathResult longestRouteBidirectional() {
+        return graph.findPath(graph.nodesByName(longFrom), graph.nodesByName(longTo), SearchAlgorithm.BIDIRECTIONAL);
+    }
+
+    @Benchmark
+    public ShortestPathTree oneToAll(Cursor cursor) {
+        String[] pair = namePairs[cursor.next++ & (namePairs.length - 1)];
+        return graph.shortestPathTree(graph.nodesByName(pair[0]));
+    }
+
+    // Whole (transfers, stations) front in one pass; compare with K separate findPath calls
+    @Benchmark
+    public List<PathResult> paretoRandomPair(Cursor cursor) {
+        String[] pair = namePairs[cursor.next++ & (namePairs.length - 1)];
+        return ParetoSearch.search(graph, graph.nodesByName(pair[0]), graph.nodesByName(pair[1]), 5);
+    }
+}
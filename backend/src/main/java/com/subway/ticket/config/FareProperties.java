@@ -6,6 +6,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 
 @Setter
@@ -18,6 +19,17 @@ public class FareProperties {
     private int baseDistance;
     private List<Rule> rules;
     private ExtraRule extra;
+    // "yaml": the rules above plus the tariffs list; "table": active fare_rule rows, re-read when
+    // they change, with the rules above as the all-day default when no row provides one
+    private String source = "yaml";
+    // Zone the tariff windows are evaluated in
+    private String zone = "Asia/Shanghai";
+    // Prices for 0..tableSegments-1 segments are precomputed per tariff; longer trips use the formula
+    private int tableSegments = 128;
+    // Change check for the fare_rule table
+    private long reloadCheckIntervalMs = 30000;
+    // Time-of-day / day-type tariffs for the yaml source, first match wins
+    private List<Tariff> tariffs = new ArrayList<>();
 
     @Setter
     @Getter
@@ -34,4 +46,20 @@ public class FareProperties {
         private BigDecimal pricePerInterval;
         private BigDecimal basePriceForExtra; // Price at startDistance
     }
+
+    @Setter
+    @Getter
+    public static class Tariff {
+        private String name;
+        // weekday, weekend, daily or day names (MON, TUESDAY, ...); empty = every day
+        private List<String> days;
+        // "HH:mm", start inclusive, end exclusive; an end before the start wraps past midnight
+        private String start;
+        private String end;
+        // Applied to the price, e.g. 90 for 10% off
+        private int percent = 100;
+        // Own price steps; the default rules when absent
+        private List<Rule> rules;
+        private ExtraRule extra;
+    }
 }
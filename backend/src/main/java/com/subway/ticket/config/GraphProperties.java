@@ -0,0 +1,56 @@
+package com.subway.ticket.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Setter
+@Getter
+@Component
+@ConfigurationProperties(prefix = "subway.graph")
+public class GraphProperties {
+
+    // Configurable weights for Dijkstra
+    private int costPerStation = 100;
+    private int costPerTransfer = 350;
+    // On-demand point-to-point search: dijkstra, astar (station coordinates), bidirectional or
+    // ch (contraction hierarchy, preprocessed on every graph build)
+    private String search = "dijkstra";
+    // Binary copy of the network rows, written after every build and loaded at boot before
+    // MySQL is consulted; empty disables it
+    private String snapshotFile = "";
+    private AllPairs allPairs = new AllPairs();
+    private Reload reload = new Reload();
+    private Routing routing = new Routing();
+
+    @Setter
+    @Getter
+    public static class AllPairs {
+        // "auto" builds the table only up to maxStations, "on" always, "off" never
+        private String mode = "auto";
+        private int maxStations = 1000;
+        // 0 = one worker per available processor
+        private int parallelism = 0;
+    }
+
+    @Setter
+    @Getter
+    public static class Reload {
+        // Periodic fingerprint check that rebuilds the graph when the network tables change
+        private boolean enabled = true;
+        private long checkIntervalMs = 30000;
+    }
+
+    @Setter
+    @Getter
+    public static class Routing {
+        // Rounds of the Pareto search; routes with more line changes are not considered
+        private int maxTransfers = 5;
+        // Upper bound for the "alternatives" parameter of the quote API
+        private int maxAlternatives = 5;
+        // Estimated riding time per station and walking / waiting time per transfer
+        private int secondsPerStation = 150;
+        private int secondsPerTransfer = 300;
+    }
+}
@@ -0,0 +1,22 @@
+package com.subway.ticket.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Setter
+@Getter
+@Component
+@ConfigurationProperties(prefix = "subway.issuance")
+public class IssuanceProperties {
+
+    // Journal the ticket row locally and write it to MySQL in the background; the orders update stays synchronous
+    private boolean writeBehind = true;
+    private String journalDir = "./data/issuance-journal";
+    // Rows per multi-row ticket INSERT
+    private int batchSize = 200;
+    private long flushIntervalMs = 200;
+    // Once everything is in MySQL, the journal file is restarted when it grows past this size
+    private long truncateBytes = 4 * 1024 * 1024;
+}
@@ -0,0 +1,140 @@
+package com.subway.ticket.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps concurrent JDBC connections with a fair semaphore in front of the pool. With virtual
+ * threads there is no Tomcat thread limit anymore, so every in-flight request would race for
+ * the handful of Hikari connections; the limiter makes them wait in arrival order (without
+ * holding a carrier thread) and fails with a clear error after {@code acquire-timeout-ms}.
+ */
+@Slf4j
+@Configuration
+public class JdbcLimiterConfig {
+
+    @Bean
+    public static BeanPostProcessor jdbcConcurrencyLimiter(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource ds) || bean instanceof LimitedDataSource) return bean;
+                Limiter props = Binder.get(environment).bind("subway.jdbc-limiter", Limiter.class).orElseGet(Limiter::new);
+                if (!props.isEnabled()) return bean;
+                int permits = props.getMaxConcurrent() > 0 ? props.getMaxConcurrent()
+                        : ds instanceof HikariDataSource h ? h.getMaximumPoolSize() : 10;
+                log.info("JDBC concurrency limiter on '{}': {} permits, {} ms acquire timeout", beanName, permits, props.getAcquireTimeoutMs());
+                return new LimitedDataSource(ds, permits, props.getAcquireTimeoutMs());
+            }
+        };
+    }
+
+    @Setter
+    @Getter
+    public static class Limiter {
+        private boolean enabled = false;
+        // 0 = Hikari maximum-pool-size
+        private int maxConcurrent = 0;
+        private long acquireTimeoutMs = 10000;
+    }
+
+    static class LimitedDataSource extends DelegatingDataSource {
+        private final Semaphore permits;
+        private final long acquireTimeoutMs;
+        // Registered globally: this wrapper is created by a static post-processor, before any
+        // MeterRegistry bean exists; Spring Boot adds its registry to the global one later
+        private final Timer waitTimer;
+
+        LimitedDataSource(DataSource target, int permits, long acquireTimeoutMs) {
+            super(target);
+            this.permits = new Semaphore(permits, true);
+            this.acquireTimeoutMs = acquireTimeoutMs;
+            this.waitTimer = Timer.builder("jdbc.limiter.wait")
+                    .description("Time spent waiting for a JDBC permit in front of the pool")
+                    .register(Metrics.globalRegistry);
+            Gauge.builder("jdbc.limiter.waiting", this.permits, Semaphore::getQueueLength)
+                    .description("Callers currently queued for a JDBC permit")
+                    .register(Metrics.globalRegistry);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            acquire();
+            try {
+                return track(super.getConnection());
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            acquire();
+            try {
+                return track(super.getConnection(username, password));
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        private void acquire() throws SQLException {
+            long start = System.nanoTime();
+            try {
+                boolean acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (!acquired) {
+                    throw new SQLTransientConnectionException("JDBC concurrency limit reached, waited " + acquireTimeoutMs + " ms ("
+                            + permits.getQueueLength() + " waiting)");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Interrupted while waiting for a JDBC permit", e);
+            }
+        }
+
+        // The permit goes back when the connection is returned to the pool
+        private Connection track(Connection target) {
+            AtomicBoolean released = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                            try {
+                                return method.invoke(target, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getTargetException();
+                            } finally {
+                                permits.release();
+                            }
+                        }
+                        try {
+                            return method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    });
+        }
+    }
+}
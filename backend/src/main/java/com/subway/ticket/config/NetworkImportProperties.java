@@ -0,0 +1,25 @@
+package com.subway.ticket.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Setter
+@Getter
+@Component
+@ConfigurationProperties(prefix = "subway.network-import")
+public class NetworkImportProperties {
+
+    // Import the network JSON on startup (db profile only)
+    private boolean enabled = true;
+    // Spring resource location, e.g. classpath:hangzhou_subway.json or file:/data/network.json
+    private String source = "classpath:hangzhou_subway.json";
+    // diff: insert / update / deactivate only what changed and patch the graph in place;
+    // replace: clear the network and everything referencing it (orders, tickets, ...) and reload
+    private String mode = "diff";
+    // Re-import even when the content hash matches the last import
+    private boolean force = false;
+    // Rows per JDBC batch
+    private int batchSize = 500;
+}
@@ -0,0 +1,18 @@
+package com.subway.ticket.config;
+
+import com.subway.ticket.service.QrSignService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class QrSignConfig {
+
+    // One shared signer so the pooled Mac instances are reused by every controller
+    @Bean
+    public QrSignService qrSignService(MeterRegistry meterRegistry) {
+        String secret = System.getenv("QR_SIGNING_SECRET");
+        if (secret == null || secret.isEmpty()) secret = "dev-secret";
+        return new QrSignService(secret, meterRegistry);
+    }
+}
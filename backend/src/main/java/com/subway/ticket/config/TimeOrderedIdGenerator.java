@@ -0,0 +1,82 @@
+package com.subway.ticket.config;
+
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style ids for entities marked {@code IdType.ASSIGN_ID} (orders, payments, QR tokens,
+ * tickets), so an id is known before the row reaches MySQL. Layout, 53 bits so the ids survive
+ * a JavaScript number: 32 bits of seconds since 2024-01-01, 5 bits of node id, 16 bits of
+ * sequence. Ids from one node only ever increase, and across nodes they are ordered by second,
+ * so InnoDB keeps appending at the right edge of the primary key.
+ * <p>
+ * The last (second, sequence) pair is advanced with one CAS; after 65536 ids in a second, or
+ * when the wall clock steps back, the generator simply runs ahead of the clock until it catches up.
+ * That state is only in memory, so at startup it is moved past the second of the largest id
+ * already stored; a restart while running ahead cannot hand out an id twice.
+ */
+@Slf4j
+@Component
+public class TimeOrderedIdGenerator implements IdentifierGenerator {
+
+    // 2024-01-01T00:00:00Z
+    static final long EPOCH_SECONDS = 1_704_067_200L;
+    static final int NODE_BITS = 5;
+    static final int SEQUENCE_BITS = 16;
+    static final int MAX_NODE = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // Largest id in any table keyed by this generator
+    private static final String MAX_ID_SQL = "SELECT GREATEST("
+            + "(SELECT COALESCE(MAX(id), 0) FROM orders), (SELECT COALESCE(MAX(id), 0) FROM payment), "
+            + "(SELECT COALESCE(MAX(id), 0) FROM qrcode_token), (SELECT COALESCE(MAX(id), 0) FROM ticket))";
+
+    private final long node;
+    private final JdbcTemplate jdbcTemplate;
+    // (seconds since epoch << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong last = new AtomicLong();
+
+    public TimeOrderedIdGenerator(@Value("${subway.ids.node:0}") int node, JdbcTemplate jdbcTemplate) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("subway.ids.node must be between 0 and " + MAX_NODE + ", got " + node);
+        }
+        this.node = node;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            Long maxId = jdbcTemplate.queryForObject(MAX_ID_SQL, Long.class);
+            if (maxId != null) seed(maxId);
+        } catch (Exception e) {
+            log.warn("Could not read the largest stored id, ids follow the clock only: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Never hands out an id at or below {@code maxId}: the next id is in a later second than
+     * {@code maxId}, whichever node issued it.
+     */
+    void seed(long maxId) {
+        long floor = (((maxId >>> (NODE_BITS + SEQUENCE_BITS)) + 1) << SEQUENCE_BITS) - 1;
+        last.accumulateAndGet(floor, Math::max);
+    }
+
+    public long nextId() {
+        long now = (System.currentTimeMillis() / 1000 - EPOCH_SECONDS) << SEQUENCE_BITS;
+        long tick = last.accumulateAndGet(now, (prev, floor) -> Math.max(floor, prev + 1));
+        return (tick >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS) | node << SEQUENCE_BITS | (tick & SEQUENCE_MASK);
+    }
+
+    @Override
+    public Long nextId(Object entity) {
+        return nextId();
+    }
+}
@@ -0,0 +1,30 @@
+package com.subway.ticket.domain;
+
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+@Setter
+@Getter
+@TableName("fare_rule")
+public class FareRule {
+    @TableId
+    private Long id;
+    // Tariff name, e.g. "standard" or "off-peak"
+    private String ruleType;
+    private BigDecimal basePrice;
+    private BigDecimal perSegmentPrice;
+    // Segments covered by basePrice
+    private Integer baseSegments;
+    private String dayType;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private Integer isActive;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -1,5 +1,6 @@
 package com.subway.ticket.domain;
 
+import com.baomidou.mybatisplus.annotation.IdType;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 import com.subway.ticket.domain.enums.OrderStatus;
@@ -10,7 +11,8 @@ import java.time.LocalDateTime;
 @Data
 @TableName("orders")
 public class Order {
-    @TableId
+    // Assigned by TimeOrderedIdGenerator before the insert
+    @TableId(type = IdType.ASSIGN_ID)
     private Long id;
     private Long userId;
     private Long fromStationId;
@@ -13,6 +13,9 @@ public class Station {
     @TableId
     private Long id;
     private String name;
+    // e.g. "XiangHu", syllables capitalised; used for pinyin and initials search
+    private String pinyin;
+    private String enName;
     private Long lineId;
     private String code;
     private Double lng;
@@ -1,5 +1,6 @@
 package com.subway.ticket.domain;
 
+import com.baomidou.mybatisplus.annotation.IdType;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 import lombok.Data;
@@ -9,7 +10,8 @@ import java.time.LocalDateTime;
 @Data
 @TableName("ticket")
 public class Ticket {
-    @TableId
+    // Assigned by TimeOrderedIdGenerator before the insert
+    @TableId(type = IdType.ASSIGN_ID)
     private Long id;
     private Long orderId;
     private Long qrcodeTokenId;
@@ -0,0 +1,22 @@
+package com.subway.ticket.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Either one origin with many destinations ({@code from} + {@code to}),
+ * or an explicit list of {@code pairs}.
+ */
+@Data
+public class BatchQuoteReq {
+    private String from;
+    private List<String> to;
+    private List<Pair> pairs;
+
+    @Data
+    public static class Pair {
+        private String from;
+        private String to;
+    }
+}
@@ -1,13 +1,16 @@
 package com.subway.ticket.dto;
 
-import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 
+/**
+ * Either quoteToken from /api/fares/quote, or from / to station codes to price the route again.
+ * With both, a valid token wins and from / to are the fallback once it has expired.
+ */
 @Data
 public class CreateOrderReq {
-    @NotBlank(message = "出发站不能为空")
     private String from;
 
-    @NotBlank(message = "到达站不能为空")
     private String to;
+
+    private String quoteToken;
 }
@@ -1,5 +1,7 @@
 package com.subway.ticket.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,4 +20,30 @@ public class FareQuote {
     private String mode;
     private List<String> path;
     private List<RouteStep> steps; // Detailed route steps
+    private int transfers;
+    private int minutes; // Estimated riding time including transfers
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String tariff; // Fare tariff the price was taken from, e.g. "off-peak"
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<FareQuote> alternatives; // Other Pareto-optimal routes, only when requested
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String quoteToken; // Signed and short-lived; POST /api/orders accepts it instead of from/to
+    @JsonIgnore
+    private Basis basis; // What a quote token vouches for, null when there is no price
+
+    /**
+     * Station ids, price and the network and tariff it was computed under.
+     */
+    public record Basis(long fromStationId, long toStationId, int cents, String networkTag, String tariffVersion) {
+    }
+
+    public FareQuote(String from, String to, int segments, BigDecimal price, String mode, List<String> path, List<RouteStep> steps) {
+        this(from, to, segments, price, mode, path, steps, 0, 0, null, null, null, null);
+    }
+
+    // Copy for one response; quotes may be shared through the cache
+    public FareQuote withQuoteToken(String token) {
+        return new FareQuote(from, to, segments, price, mode, path, steps, transfers, minutes, tariff, alternatives,
+                token, basis);
+    }
 }
@@ -0,0 +1,33 @@
+package com.subway.ticket.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Prices from one origin to every reachable station, computed from a single shortest-path tree.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FareTable {
+    private String from;
+    // Network tag of the snapshot, the same in every instance serving this network
+    private String network;
+    // Fare schedule version and tariff the prices come from
+    private String fareVersion;
+    private String tariff;
+    private List<Entry> entries;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String code;
+        private int segments;
+        private BigDecimal price;
+    }
+}
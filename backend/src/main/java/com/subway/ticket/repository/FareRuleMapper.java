@@ -0,0 +1,9 @@
+package com.subway.ticket.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.subway.ticket.domain.FareRule;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface FareRuleMapper extends BaseMapper<FareRule> {
+}
@@ -1,135 +1,449 @@
 package com.subway.ticket.service;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
-import com.subway.ticket.config.FareProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.subway.ticket.config.GraphProperties;
 import com.subway.ticket.domain.Line;
 import com.subway.ticket.domain.Station;
+import com.subway.ticket.dto.BatchQuoteReq;
 import com.subway.ticket.dto.FareQuote;
+import com.subway.ticket.dto.FareTable;
 import com.subway.ticket.dto.RouteStep;
-import com.subway.ticket.repository.StationMapper;
+import com.subway.ticket.service.fare.FareEngine;
+import com.subway.ticket.service.fare.FareSchedule;
+import com.subway.ticket.service.fare.FareScheduleChangedEvent;
+import com.subway.ticket.service.fare.Tariff;
+import com.subway.ticket.service.graph.CompactGraph;
+import com.subway.ticket.service.graph.GraphReloadedEvent;
+import com.subway.ticket.service.graph.GraphSnapshot;
+import com.subway.ticket.service.graph.ParetoSearch;
+import com.subway.ticket.service.graph.PathResult;
+import com.subway.ticket.service.graph.RouteObjective;
+import com.subway.ticket.service.graph.SearchAlgorithm;
+import com.subway.ticket.service.graph.ShortestPathTree;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class FareService {
 
     private final GraphService graphService;
-    private final StationMapper stationMapper;
-    private final FareProperties fareProperties;
+    private final FareEngine fareEngine;
+    private final GraphProperties.Routing routing;
 
-    public FareService(GraphService graphService, StationMapper stationMapper, FareProperties fareProperties) {
+    // Finished quotes keyed by (from, to, graph version, tariff); null when the cache is disabled
+    private final Cache<QuoteKey, FareQuote> quoteCache;
+
+    // Route search per kind (all-pairs lookup, on-demand algorithm, one-to-many tree, Pareto rounds)
+    // and the nodes it settled; percentiles are configured under management.metrics.distribution
+    private final Map<SearchAlgorithm, SearchMeters> searchMeters = new EnumMap<>(SearchAlgorithm.class);
+    private final SearchMeters allPairsMeters;
+    private final SearchMeters treeMeters;
+    private final SearchMeters paretoMeters;
+    private final Timer priceTimer;
+    private final Timer routeStepsTimer;
+
+    public FareService(GraphService graphService, FareEngine fareEngine, GraphProperties graphProperties,
+                       MeterRegistry meterRegistry,
+                       @Value("${subway.quote-cache.enabled:true}") boolean cacheEnabled,
+                       @Value("${subway.quote-cache.max-size:20000}") long cacheMaxSize) {
         this.graphService = graphService;
-        this.stationMapper = stationMapper;
-        this.fareProperties = fareProperties;
+        this.fareEngine = fareEngine;
+        this.routing = graphProperties.getRouting();
+        // Caffeine evicts with W-TinyLFU, which keeps the popular pairs under a scan of one-off lookups
+        this.quoteCache = cacheEnabled
+                ? Caffeine.newBuilder().maximumSize(cacheMaxSize).recordStats().build()
+                : null;
+        for (SearchAlgorithm a : SearchAlgorithm.values()) {
+            searchMeters.put(a, new SearchMeters(meterRegistry, a.name().toLowerCase()));
+        }
+        this.allPairsMeters = new SearchMeters(meterRegistry, "all_pairs");
+        this.treeMeters = new SearchMeters(meterRegistry, "tree");
+        this.paretoMeters = new SearchMeters(meterRegistry, "pareto");
+        this.priceTimer = Timer.builder("fare.calculate_price")
+                .description("Compiled fare table lookup for one segment count")
+                .register(meterRegistry);
+        this.routeStepsTimer = Timer.builder("fare.route_steps")
+                .description("Turning a node path into per-line route steps")
+                .register(meterRegistry);
     }
 
     public FareQuote calculateFare(String fromCode, String toCode) {
-        if (graphService.isEmpty()) {
-            graphService.initGraph();
+        // Resolve everything against one published snapshot for the whole quote
+        GraphSnapshot snapshot = graphService.snapshot();
+        Station sFrom = snapshot.stations().byCode(fromCode);
+        Station sTo = snapshot.stations().byCode(toCode);
+
+        // Unknown codes are answered directly so arbitrary input cannot fill the cache
+        if (sFrom == null || sTo == null) {
+            return new FareQuote(fromCode, toCode, 0, BigDecimal.ZERO, "STATION_NOT_FOUND", null, null);
         }
 
-        Station sFrom = stationMapper.selectList(new QueryWrapper<Station>().eq("code", fromCode).last("limit 1")).stream().findFirst().orElse(null);
-        Station sTo = stationMapper.selectList(new QueryWrapper<Station>().eq("code", toCode).last("limit 1")).stream().findFirst().orElse(null);
+        Tariff tariff = fareEngine.tariff();
+        if (quoteCache == null) {
+            return computeFare(snapshot, tariff, sFrom, sTo, fromCode, toCode);
+        }
+        return quoteCache.get(new QuoteKey(fromCode, toCode, snapshot.version(), tariff),
+                k -> computeFare(snapshot, tariff, sFrom, sTo, fromCode, toCode));
+    }
 
+    /**
+     * Route choice for one pair: the Pareto-optimal routes in (transfers, stations) come from a
+     * single round-based search, the best one for the objective is returned and up to
+     * alternatives - 1 others are attached, ordered by the same objective. Not cached; the
+     * default single-route quote stays on {@link #calculateFare}.
+     */
+    public FareQuote calculateRoutes(String fromCode, String toCode, RouteObjective objective, int alternatives) {
+        GraphSnapshot snapshot = graphService.snapshot();
+        Station sFrom = snapshot.stations().byCode(fromCode);
+        Station sTo = snapshot.stations().byCode(toCode);
         if (sFrom == null || sTo == null) {
             return new FareQuote(fromCode, toCode, 0, BigDecimal.ZERO, "STATION_NOT_FOUND", null, null);
         }
 
-        List<Long> startIds = graphService.getIdsByName(sFrom.getName());
-        List<Long> endIds = graphService.getIdsByName(sTo.getName());
+        CompactGraph graph = snapshot.graph();
+        int[] startNodes = graph.nodesByName(sFrom.getName());
+        int[] endNodes = graph.nodesByName(sTo.getName());
+        if (startNodes.length == 0 || endNodes.length == 0) {
+            return new FareQuote(fromCode, toCode, 0, BigDecimal.ZERO, "NODES_NOT_FOUND", null, null);
+        }
+
+        Tariff tariff = fareEngine.tariff();
+        long start = System.nanoTime();
+        List<PathResult> front = new ArrayList<>(ParetoSearch.search(graph, startNodes, endNodes, routing.getMaxTransfers()));
+        paretoMeters.record(System.nanoTime() - start, 0);
+        if (front.isEmpty()) {
+            return toQuote(snapshot, tariff, fromCode, toCode, null);
+        }
+        front.sort(routeOrder(graph, objective));
+
+        FareQuote primary = toQuote(snapshot, tariff, fromCode, toCode, front.getFirst());
+        List<FareQuote> others = new ArrayList<>();
+        for (int i = 1; i < front.size() && i < Math.max(1, alternatives); i++) {
+            others.add(toQuote(snapshot, tariff, fromCode, toCode, front.get(i)));
+        }
+        primary.setAlternatives(others);
+        return primary;
+    }
+
+    private Comparator<PathResult> routeOrder(CompactGraph graph, RouteObjective objective) {
+        Comparator<PathResult> byTransfers = Comparator.comparingInt(r -> graph.transfers(r.path));
+        Comparator<PathResult> byStations = Comparator.comparingInt(r -> r.distance);
+        return switch (objective) {
+            case FEWEST_TRANSFERS -> byTransfers.thenComparing(byStations);
+            case FEWEST_STATIONS -> byStations.thenComparing(byTransfers);
+            case LEAST_TIME -> Comparator.<PathResult>comparingInt(r -> travelSeconds(r.distance, graph.transfers(r.path)))
+                    .thenComparing(byTransfers);
+            case BALANCED -> Comparator.<PathResult>comparingInt(r -> r.cost).thenComparing(byTransfers);
+        };
+    }
+
+    private int travelSeconds(int segments, int transfers) {
+        return segments * routing.getSecondsPerStation() + transfers * routing.getSecondsPerTransfer();
+    }
+
+    public int maxAlternatives() {
+        return routing.getMaxAlternatives();
+    }
+
+    // Unlike the graph version, stable across restarts and instances, so it can key ETags
+    public String currentNetworkTag() {
+        return graphService.snapshot().networkTag();
+    }
+
+    // A quote token for the basis is only honoured while nothing it depends on has changed
+    public boolean isCurrent(FareQuote.Basis basis) {
+        return basis.networkTag().equals(graphService.snapshot().networkTag())
+                && fareEngine.schedule().hasTariff(basis.tariffVersion());
+    }
+
+    // Schedule version and tariff in force, for ETags over prices
+    public String currentFareVersion() {
+        FareSchedule schedule = fareEngine.schedule();
+        return schedule.tag(fareEngine.tariff());
+    }
+
+    @EventListener
+    public void onGraphReloaded(GraphReloadedEvent event) {
+        invalidateQuotes();
+    }
+
+    // Quotes are keyed by tariff, so this only frees entries that can no longer be hit
+    @EventListener
+    public void onFareScheduleChanged(FareScheduleChangedEvent event) {
+        invalidateQuotes();
+    }
+
+    public void invalidateQuotes() {
+        if (quoteCache != null) quoteCache.invalidateAll();
+    }
+
+    public CacheStats quoteCacheStats() {
+        return quoteCache != null ? quoteCache.stats() : CacheStats.empty();
+    }
 
-        if (startIds.isEmpty() || endIds.isEmpty()) {
+    public long quoteCacheSize() {
+        return quoteCache != null ? quoteCache.estimatedSize() : 0;
+    }
+
+    /**
+     * Quotes from one origin to many destinations with a single one-to-many search.
+     * Results are returned in the order of toCodes and shared with the single-quote cache.
+     */
+    public List<FareQuote> calculateFares(String fromCode, List<String> toCodes) {
+        GraphSnapshot snapshot = graphService.snapshot();
+        Station sFrom = snapshot.stations().byCode(fromCode);
+        Tariff tariff = fareEngine.tariff();
+        FareQuote[] out = new FareQuote[toCodes.size()];
+        List<Integer> pending = new ArrayList<>();
+
+        for (int i = 0; i < out.length; i++) {
+            String toCode = toCodes.get(i);
+            Station sTo = snapshot.stations().byCode(toCode);
+            if (sFrom == null || sTo == null) {
+                out[i] = new FareQuote(fromCode, toCode, 0, BigDecimal.ZERO, "STATION_NOT_FOUND", null, null);
+                continue;
+            }
+            FareQuote cached = quoteCache != null
+                    ? quoteCache.getIfPresent(new QuoteKey(fromCode, toCode, snapshot.version(), tariff))
+                    : null;
+            if (cached != null) {
+                out[i] = cached;
+            } else {
+                pending.add(i);
+            }
+        }
+        if (pending.isEmpty()) return Arrays.asList(out);
+
+        CompactGraph graph = snapshot.graph();
+        int[] startNodes = graph.nodesByName(sFrom.getName());
+        if (snapshot.hasAllPairs() || startNodes.length == 0) {
+            // Table lookups are already O(1) per pair
+            for (int i : pending) {
+                String toCode = toCodes.get(i);
+                out[i] = computeFare(snapshot, tariff, sFrom, snapshot.stations().byCode(toCode), fromCode, toCode);
+            }
+        } else {
+            int total = 0;
+            int[][] endNodes = new int[out.length][];
+            for (int i : pending) {
+                endNodes[i] = graph.nodesByName(snapshot.stations().byCode(toCodes.get(i)).getName());
+                total += endNodes[i].length;
+            }
+            int[] allTargets = new int[total];
+            int k = 0;
+            for (int i : pending) {
+                System.arraycopy(endNodes[i], 0, allTargets, k, endNodes[i].length);
+                k += endNodes[i].length;
+            }
+
+            long start = System.nanoTime();
+            ShortestPathTree tree = graph.shortestPathTree(startNodes, allTargets);
+            treeMeters.record(System.nanoTime() - start, 0);
+            for (int i : pending) {
+                String toCode = toCodes.get(i);
+                if (endNodes[i].length == 0) {
+                    out[i] = new FareQuote(fromCode, toCode, 0, BigDecimal.ZERO, "NODES_NOT_FOUND", null, null);
+                    continue;
+                }
+                int best = tree.best(endNodes[i]);
+                out[i] = toQuote(snapshot, tariff, fromCode, toCode, best >= 0 ? tree.pathTo(best) : null);
+            }
+        }
+
+        if (quoteCache != null) {
+            for (int i : pending) {
+                quoteCache.put(new QuoteKey(fromCode, toCodes.get(i), snapshot.version(), tariff), out[i]);
+            }
+        }
+        return Arrays.asList(out);
+    }
+
+    /**
+     * Quotes an arbitrary list of pairs; pairs sharing an origin are answered by one search.
+     */
+    public List<FareQuote> calculateFares(List<BatchQuoteReq.Pair> pairs) {
+        Map<String, List<Integer>> byOrigin = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.size(); i++) {
+            byOrigin.computeIfAbsent(pairs.get(i).getFrom(), k -> new ArrayList<>()).add(i);
+        }
+
+        FareQuote[] out = new FareQuote[pairs.size()];
+        byOrigin.forEach((fromCode, indexes) -> {
+            List<String> toCodes = new ArrayList<>(indexes.size());
+            for (int i : indexes) toCodes.add(pairs.get(i).getTo());
+            List<FareQuote> quotes = calculateFares(fromCode, toCodes);
+            for (int j = 0; j < indexes.size(); j++) {
+                out[indexes.get(j)] = quotes.get(j);
+            }
+        });
+        return Arrays.asList(out);
+    }
+
+    /**
+     * Price to every reachable station from one origin, or null when the origin is unknown.
+     * Transfer stations are listed once, under the code of their first station row.
+     */
+    public FareTable fareTable(String fromCode) {
+        GraphSnapshot snapshot = graphService.snapshot();
+        Station sFrom = snapshot.stations().byCode(fromCode);
+        if (sFrom == null) return null;
+
+        FareSchedule schedule = fareEngine.schedule();
+        Tariff tariff = fareEngine.tariff();
+        CompactGraph graph = snapshot.graph();
+        long start = System.nanoTime();
+        ShortestPathTree tree = graph.shortestPathTree(graph.nodesByName(sFrom.getName()));
+        treeMeters.record(System.nanoTime() - start, 0);
+        List<FareTable.Entry> entries = new ArrayList<>(graph.stationCount());
+        for (String name : graph.stationNames()) {
+            int best = tree.best(graph.nodesByName(name));
+            List<Station> rows = snapshot.stations().byName(name);
+            if (best < 0 || rows.isEmpty()) continue;
+            int segments = tree.segments(best);
+            entries.add(new FareTable.Entry(rows.getFirst().getCode(), segments,
+                    FareSchedule.yuan(calculatePrice(tariff, segments))));
+        }
+        return new FareTable(fromCode, snapshot.networkTag(), schedule.tag(tariff), tariff.name(), entries);
+    }
+
+    private FareQuote computeFare(GraphSnapshot snapshot, Tariff tariff, Station sFrom, Station sTo, String fromCode, String toCode) {
+        CompactGraph graph = snapshot.graph();
+        int[] startNodes = graph.nodesByName(sFrom.getName());
+        int[] endNodes = graph.nodesByName(sTo.getName());
+
+        if (startNodes.length == 0 || endNodes.length == 0) {
             return new FareQuote(fromCode, toCode, 0, BigDecimal.ZERO, "NODES_NOT_FOUND", null, null);
         }
 
-        GraphService.PathResult pathResult = graphService.findPath(startIds, endIds);
+        long start = System.nanoTime();
+        PathResult path = snapshot.findPath(sFrom.getName(), sTo.getName());
+        SearchMeters meters = snapshot.hasAllPairs() ? allPairsMeters : searchMeters.get(snapshot.search());
+        meters.record(System.nanoTime() - start, path != null ? path.settled : 0);
+        return toQuote(snapshot, tariff, fromCode, toCode, path);
+    }
 
+    private FareQuote toQuote(GraphSnapshot snapshot, Tariff tariff, String fromCode, String toCode, PathResult pathResult) {
         if (pathResult == null) {
             return new FareQuote(fromCode, toCode, 0, BigDecimal.ZERO, "UNREACHABLE", null, null);
         }
 
         int distance = pathResult.distance;
-        BigDecimal price = calculatePrice(distance);
+        // Cents up to here; the API edge is the only place that sees BigDecimal
+        int cents = calculatePrice(tariff, distance);
+        BigDecimal price = FareSchedule.yuan(cents);
 
-        List<String> pathCodes = new ArrayList<>();
-        for (Long pid : pathResult.pathIds) {
-            String code = graphService.getCodeById(pid);
+        CompactGraph graph = snapshot.graph();
+        List<String> pathCodes = new ArrayList<>(pathResult.path.length);
+        for (int node : pathResult.path) {
+            String code = graph.code(node);
             if (code != null) pathCodes.add(code);
         }
 
-        List<RouteStep> steps = buildRouteSteps(pathResult.pathIds);
+        List<RouteStep> steps = buildRouteSteps(snapshot, pathResult.path);
+        int transfers = graph.transfers(pathResult.path);
+        int minutes = (travelSeconds(distance, transfers) + 59) / 60;
 
-        return new FareQuote(fromCode, toCode, distance, price, "HANGZHOU_RULE", pathCodes, steps);
+        FareQuote.Basis basis = new FareQuote.Basis(snapshot.stations().byCode(fromCode).getId(),
+                snapshot.stations().byCode(toCode).getId(), cents, snapshot.networkTag(), tariff.version());
+        return new FareQuote(fromCode, toCode, distance, price, "HANGZHOU_RULE", pathCodes, steps, transfers, minutes,
+                tariff.name(), null, null, basis);
     }
 
-    private BigDecimal calculatePrice(int distance) {
-        // 1. Check configured rules
-        if (fareProperties.getRules() != null) {
-            for (FareProperties.Rule rule : fareProperties.getRules()) {
-                if (distance <= rule.getDistance()) {
-                    return rule.getPrice();
-                }
-            }
+    private int calculatePrice(Tariff tariff, int distance) {
+        long start = System.nanoTime();
+        try {
+            return tariff.cents(distance);
+        } finally {
+            priceTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
+    }
 
-        // 2. Check extra distance rule
-        FareProperties.ExtraRule extra = fareProperties.getExtra();
-        if (extra != null && distance > extra.getStartDistance()) {
-            int extraDist = distance - extra.getStartDistance();
-            int steps = (int) Math.ceil((double) extraDist / extra.getInterval());
-            return extra.getBasePriceForExtra().add(extra.getPricePerInterval().multiply(new BigDecimal(steps)));
+    private List<RouteStep> buildRouteSteps(GraphSnapshot snapshot, int[] path) {
+        long start = System.nanoTime();
+        try {
+            return routeSteps(snapshot, path);
+        } finally {
+            routeStepsTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
-
-        // Fallback
-        return fareProperties.getBasePrice() != null ? fareProperties.getBasePrice() : BigDecimal.ZERO;
     }
 
-    private List<RouteStep> buildRouteSteps(List<Long> pathIds) {
+    private List<RouteStep> routeSteps(GraphSnapshot snapshot, int[] path) {
         List<RouteStep> steps = new ArrayList<>();
-        if (pathIds == null || pathIds.isEmpty()) return steps;
+        if (path == null || path.length == 0) return steps;
 
-        Long currentLineId = null;
-        String startStation = null;
+        CompactGraph graph = snapshot.graph();
+        long currentLineId = graph.lineId(path[0]);
+        String startStation = graph.name(path[0]);
         String endStation;
         int count = 0;
 
-        for (int i = 0; i < pathIds.size(); i++) {
-            Long nodeId = pathIds.get(i);
-            Long lineId = graphService.getLineIdByNodeId(nodeId);
-            String stationName = graphService.getNameById(nodeId);
+        for (int i = 1; i < path.length; i++) {
+            long lineId = graph.lineId(path[i]);
+            if (lineId != currentLineId) {
+                // Line changed!
+                endStation = graph.name(path[i - 1]);
+                steps.add(createRouteStep(snapshot, currentLineId, startStation, endStation, count));
 
-            if (i == 0) {
                 currentLineId = lineId;
-                startStation = stationName;
+                startStation = graph.name(path[i]);
+                count = 0;
             } else {
-                if (!Objects.equals(lineId, currentLineId)) {
-                    // Line changed!
-                    endStation = graphService.getNameById(pathIds.get(i - 1));
-                    steps.add(createRouteStep(currentLineId, startStation, endStation, count));
-
-                    currentLineId = lineId;
-                    startStation = stationName;
-                    count = 0;
-                } else {
-                    count++;
-                }
+                count++;
             }
         }
 
-        if (startStation != null && count > 0) {
-            endStation = graphService.getNameById(pathIds.getLast());
-            steps.add(createRouteStep(currentLineId, startStation, endStation, count));
+        if (count > 0) {
+            endStation = graph.name(path[path.length - 1]);
+            steps.add(createRouteStep(snapshot, currentLineId, startStation, endStation, count));
         }
 
         return steps;
     }
 
-    private RouteStep createRouteStep(Long lineId, String startStation, String endStation, int count) {
-        Line line = graphService.getLineInfo(lineId);
+    // Tariff compares by identity: every recompiled schedule brings new tariff objects
+    private record QuoteKey(String from, String to, long graphVersion, Tariff tariff) {
+    }
+
+    private static final class SearchMeters {
+        final Timer time;
+        final DistributionSummary settled;
+
+        SearchMeters(MeterRegistry registry, String search) {
+            this.time = Timer.builder("fare.find_path")
+                    .description("Route search for a quote")
+                    .tag("search", search)
+                    .register(registry);
+            this.settled = DistributionSummary.builder("fare.nodes_settled")
+                    .description("Nodes settled by one route search")
+                    .tag("search", search)
+                    .register(registry);
+        }
+
+        // Table lookups and searches that do not count settled nodes pass 0 and are left out of the summary
+        void record(long nanos, int settledNodes) {
+            time.record(nanos, TimeUnit.NANOSECONDS);
+            if (settledNodes > 0) settled.record(settledNodes);
+        }
+    }
+
+    private RouteStep createRouteStep(GraphSnapshot snapshot, long lineId, String startStation, String endStation, int count) {
+        Line line = snapshot.line(lineId);
         String lName = line != null ? line.getName() : "Unknown Line";
         String lColor = graphService.getLineColor(lName, line != null ? line.getColor() : null);
         return new RouteStep(lName, lColor, startStation, endStation, count);
@@ -1,60 +1,90 @@
 package com.subway.ticket.service;
 
+import com.subway.ticket.config.GraphProperties;
 import com.subway.ticket.domain.Line;
 import com.subway.ticket.domain.LineStation;
 import com.subway.ticket.domain.Station;
 import com.subway.ticket.repository.LineMapper;
 import com.subway.ticket.repository.LineStationMapper;
 import com.subway.ticket.repository.StationMapper;
+import com.subway.ticket.service.graph.AllPairsTable;
+import com.subway.ticket.service.graph.CompactGraph;
+import com.subway.ticket.service.graph.ContractionHierarchy;
+import com.subway.ticket.service.graph.GraphReloadedEvent;
+import com.subway.ticket.service.graph.GraphSnapshot;
+import com.subway.ticket.service.graph.GraphSnapshotFile;
+import com.subway.ticket.service.graph.SearchAlgorithm;
+import com.subway.ticket.service.graph.StationDirectory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class GraphService {
 
+    // Cheap change detector for line / station / line_station; line_station has no updated_at,
+    // so its rows are folded into a CRC sum
+    private static final String FINGERPRINT_SQL = "SELECT CONCAT_WS(':', "
+            + "(SELECT COUNT(*) FROM line), (SELECT COALESCE(MAX(updated_at), '') FROM line), "
+            + "(SELECT COUNT(*) FROM station), (SELECT COALESCE(MAX(updated_at), '') FROM station), "
+            + "(SELECT COUNT(*) FROM line_station), "
+            + "(SELECT COALESCE(SUM(CRC32(CONCAT_WS(',', id, line_id, station_id, seq))), 0) FROM line_station))";
+
     private final StationMapper stationMapper;
     private final LineStationMapper lineStationMapper;
     private final LineMapper lineMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final GraphProperties properties;
+    private final Timer buildTimer;
 
-    // Graph representation: (LineStation ID) -> List of Connected (LineStation IDs)
-    private final Map<Long, Set<Long>> graph = new HashMap<>();
-    
-    // LineStation ID -> Station Name (for display & transfer detection)
-    private final Map<Long, String> nodeNames = new HashMap<>();
-    
-    // Station Name -> List of LineStation IDs (for finding start/end nodes)
-    private final Map<String, List<Long>> nameToNodeIds = new HashMap<>();
-    
-    // LineStation ID -> Station Code (for result mapping)
-    private final Map<Long, String> nodeToCode = new HashMap<>();
-
-    // LineStation ID -> Line ID (to check if same line)
-    private final Map<Long, Long> nodeToLineId = new HashMap<>();
-    
-    // Station ID -> List of LineStation IDs (to detect transfers via Station ID)
-    private final Map<Long, List<Long>> stationIdToLineStationIds = new HashMap<>();
-    
-    // Line ID -> Line Info (Name, Color)
-    private final Map<Long, Line> lineInfoMap = new HashMap<>();
+    // Current network build; readers take one snapshot per request, rebuilds swap the reference
+    private final AtomicReference<GraphSnapshot> current = new AtomicReference<>(GraphSnapshot.empty());
+    // A lock rather than synchronized: rebuilds do JDBC I/O, which would pin a virtual thread's carrier
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Rows the current snapshot was built from, so a network change can be applied without reloading the tables
+    private NetworkRows rows = new NetworkRows(List.of(), List.of(), List.of());
+    // False while serving rows from the snapshot file that MySQL has not confirmed yet; published
+    // together with the rows, under rebuildLock
+    private volatile boolean rowsValidated;
 
     // Mock colors map for fallback/better visibility
     private final Map<String, String> mockLineColors = new HashMap<>();
 
-    // Configurable weights for Dijkstra
-    // Injected via application.properties or defaulted here
-    @org.springframework.beans.factory.annotation.Value("${subway.graph.cost-per-station:100}")
-    private int costPerStation;
-    
-    @org.springframework.beans.factory.annotation.Value("${subway.graph.cost-per-transfer:350}")
-    private int costPerTransfer;
-
-    public GraphService(StationMapper stationMapper, LineStationMapper lineStationMapper, LineMapper lineMapper) {
+    public GraphService(StationMapper stationMapper, LineStationMapper lineStationMapper, LineMapper lineMapper,
+                        JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher, GraphProperties properties,
+                        MeterRegistry meterRegistry) {
         this.stationMapper = stationMapper;
         this.lineStationMapper = lineStationMapper;
         this.lineMapper = lineMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.buildTimer = Timer.builder("graph.build")
+                .description("Building graph, all-pairs table and hierarchy for one snapshot")
+                .register(meterRegistry);
+        Gauge.builder("graph.version", current, c -> c.get().version()).register(meterRegistry);
+        Gauge.builder("graph.nodes", current, c -> c.get().graph().nodeCount()).register(meterRegistry);
+        Gauge.builder("graph.stations", current, c -> c.get().graph().stationCount()).register(meterRegistry);
         initMockColors();
     }
 
@@ -75,44 +105,262 @@ public class GraphService {
 
     @PostConstruct
     public void initGraph() {
+        // Serve from the local snapshot file right away; MySQL is checked once startup has finished
+        if (loadSnapshotFile()) return;
+        reload();
+    }
+
+    /**
+     * Unconditional rebuild, e.g. from the admin endpoint.
+     */
+    public GraphSnapshot reload() {
+        return rebuild(fingerprint());
+    }
+
+    // Confirms a snapshot loaded from file (and picks up anything imported at startup) without
+    // holding up readiness; until then quotes are served from the file
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread.ofPlatform().daemon().name("graph-validate").start(() -> {
+            try {
+                reloadIfChanged();
+            } catch (Exception e) {
+                log.warn("Background validation against MySQL failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${subway.graph.reload.check-interval-ms:30000}",
+            initialDelayString = "${subway.graph.reload.check-interval-ms:30000}")
+    public void scheduledCheck() {
+        if (properties.getReload().isEnabled()) reloadIfChanged();
+    }
+
+    /**
+     * Rebuilds only when line / station / line_station changed since the current snapshot.
+     * Returns the snapshot that is current afterwards.
+     */
+    public GraphSnapshot reloadIfChanged() {
+        String fp = fingerprint();
+        if (fp != null && fp.equals(current.get().fingerprint())) {
+            if (!rowsValidated) {
+                rowsValidated = true;
+                log.info("Snapshot file matches MySQL");
+            }
+            return current.get();
+        }
+        return rebuild(fp);
+    }
+
+    /**
+     * Builds a complete new snapshot off to the side and publishes it with one reference swap.
+     * Rebuilds are serialized; readers never block.
+     */
+    private GraphSnapshot rebuild(String fingerprint) {
+        rebuildLock.lock();
+        try {
+            // Always build from LineStation (DB Sequence)
+            GraphSnapshot snapshot = publish(lineMapper.selectList(null), stationMapper.selectList(null),
+                    lineStationMapper.selectList(null), fingerprint);
+            writeSnapshotFile(fingerprint);
+            return snapshot;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Builds and publishes a snapshot from rows that were loaded elsewhere
+     * (e.g. straight from the bundled JSON in benchmarks).
+     */
+    public GraphSnapshot publish(List<Line> lines, List<Station> stations, List<LineStation> lineStations,
+                                 String fingerprint) {
+        return publish(lines, stations, lineStations, fingerprint, true);
+    }
+
+    private GraphSnapshot publish(List<Line> lines, List<Station> stations, List<LineStation> lineStations,
+                                  String fingerprint, boolean validated) {
+        rebuildLock.lock();
+        try {
+            return doPublish(lines, stations, lineStations, fingerprint, validated);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Applies an import's changed rows on top of the rows of the current snapshot instead of
+     * reading all three tables again: lines and stations replace the rows with the same id, and
+     * each entry of {@code lineStationsByLine} replaces that line's whole station sequence.
+     */
+    public GraphSnapshot applyNetworkChange(Collection<Line> lines, Collection<Station> stations,
+                                            Map<Long, List<LineStation>> lineStationsByLine) {
+        rebuildLock.lock();
+        try {
+            // The change was diffed against the tables; unconfirmed file rows may not match them
+            if (!rowsValidated) return rebuild(fingerprint());
+
+            NetworkRows base = rows;
+            Map<Long, Line> lineById = new LinkedHashMap<>();
+            base.lines().forEach(l -> lineById.put(l.getId(), l));
+            lines.forEach(l -> lineById.put(l.getId(), l));
+
+            Map<Long, Station> stationById = new LinkedHashMap<>();
+            base.stations().forEach(s -> stationById.put(s.getId(), s));
+            stations.forEach(s -> stationById.put(s.getId(), s));
+
+            List<LineStation> lineStations = new ArrayList<>();
+            for (LineStation ls : base.lineStations()) {
+                if (!lineStationsByLine.containsKey(ls.getLineId())) lineStations.add(ls);
+            }
+            lineStationsByLine.values().forEach(lineStations::addAll);
+
+            log.info("Applying network change ({} lines, {} stations, {} station sequences)", lines.size(), stations.size(),
+                    lineStationsByLine.size());
+            String fingerprint = fingerprint();
+            GraphSnapshot snapshot = doPublish(new ArrayList<>(lineById.values()), new ArrayList<>(stationById.values()),
+                    lineStations, fingerprint, true);
+            writeSnapshotFile(fingerprint);
+            return snapshot;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // validated: the rows came from (or were checked against) MySQL rather than the snapshot file
+    private GraphSnapshot doPublish(List<Line> lines, List<Station> stations, List<LineStation> lineStations,
+                                   String fingerprint, boolean validated) {
+        long start = System.nanoTime();
         // Load Line Info
-        List<Line> lines = lineMapper.selectList(null);
-        lineInfoMap.clear();
+        Map<Long, Line> lineInfoMap = new HashMap<>();
         for (Line l : lines) {
             lineInfoMap.put(l.getId(), l);
         }
-        
-        // Always build from LineStation (DB Sequence)
-        buildGraphFromLineStations();
+
+        CompactGraph graph = buildGraphFromLineStations(lineInfoMap, stations, lineStations);
+        AllPairsTable allPairs = buildAllPairs(graph);
+        SearchAlgorithm search = searchAlgorithm(graph);
+        ContractionHierarchy contraction = search == SearchAlgorithm.CONTRACTION ? buildContraction(graph) : null;
+
+        long version = current.get().version() + 1;
+        GraphSnapshot snapshot = new GraphSnapshot(version, fingerprint != null ? fingerprint : "",
+                graph, StationDirectory.of(stations), lineInfoMap, allPairs, search, contraction);
+        current.set(snapshot);
+        rows = new NetworkRows(List.copyOf(lines), List.copyOf(stations), List.copyOf(lineStations));
+        rowsValidated = validated;
+        long buildNanos = System.nanoTime() - start;
+        buildTimer.record(buildNanos, TimeUnit.NANOSECONDS);
+        log.info("Published graph snapshot v{} in {} ms", version, buildNanos / 1_000_000);
+        eventPublisher.publishEvent(new GraphReloadedEvent(snapshot));
+        return snapshot;
+    }
+
+    private boolean loadSnapshotFile() {
+        Path path = snapshotPath();
+        if (path == null || !Files.exists(path)) return false;
+        long start = System.nanoTime();
+        try {
+            GraphSnapshotFile.Contents file = GraphSnapshotFile.read(path);
+            GraphSnapshot snapshot = publish(file.lines(), file.stations(), file.lineStations(), file.fingerprint(),
+                    false);
+            log.info("Loaded snapshot file {} ({} stations) in {} ms", path, snapshot.stations().size(),
+                    (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring snapshot file {}: {}", path, e.getMessage());
+            return false;
+        }
+    }
+
+    // Called with the rebuild lock held, right after publishing rows that came from MySQL
+    private void writeSnapshotFile(String fingerprint) {
+        Path path = snapshotPath();
+        if (path == null || fingerprint == null) return;
+        NetworkRows r = rows;
+        try {
+            GraphSnapshotFile.write(path, fingerprint, r.lines(), r.stations(), r.lineStations());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write snapshot file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private Path snapshotPath() {
+        String file = properties.getSnapshotFile();
+        return file == null || file.isBlank() ? null : Path.of(file);
+    }
+
+    private String fingerprint() {
+        try {
+            return jdbcTemplate.queryForObject(FINGERPRINT_SQL, String.class);
+        } catch (Exception e) {
+            log.warn("Network fingerprint unavailable: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private SearchAlgorithm searchAlgorithm(CompactGraph g) {
+        SearchAlgorithm algorithm = SearchAlgorithm.parse(properties.getSearch());
+        if (algorithm == null) {
+            log.warn("Unknown search algorithm '{}', using Dijkstra", properties.getSearch());
+            return SearchAlgorithm.DIJKSTRA;
+        }
+        if (algorithm == SearchAlgorithm.ASTAR && !g.hasCoordinates() && !g.isEmpty()) {
+            log.warn("Some stations have no coordinates, A* falls back to Dijkstra");
+        }
+        return algorithm;
+    }
+
+    private ContractionHierarchy buildContraction(CompactGraph g) {
+        if (g.isEmpty()) return null;
+        ContractionHierarchy ch = ContractionHierarchy.build(g);
+        log.info("Contraction hierarchy built in {} ms, {} shortcuts, {} KiB", ch.buildMillis(), ch.shortcutCount(),
+                ch.memoryBytes() / 1024);
+        return ch;
+    }
+
+    private AllPairsTable buildAllPairs(CompactGraph g) {
+        GraphProperties.AllPairs cfg = properties.getAllPairs();
+        boolean enabled = switch (cfg.getMode() == null ? "auto" : cfg.getMode().toLowerCase()) {
+            case "on", "true" -> true;
+            case "off", "false" -> false;
+            default -> g.stationCount() <= cfg.getMaxStations();
+        };
+        if (!enabled || g.isEmpty()) {
+            log.info("All-pairs table disabled, using on-demand search for {} stations", g.stationCount());
+            return null;
+        }
+
+        long start = System.nanoTime();
+        int parallelism = cfg.getParallelism() > 0 ? cfg.getParallelism() : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            AllPairsTable table = AllPairsTable.build(g, pool);
+            log.info("All-pairs table built for {} stations in {} ms", g.stationCount(), (System.nanoTime() - start) / 1_000_000);
+            return table;
+        } finally {
+            pool.shutdown();
+        }
     }
     
-    private void buildGraphFromLineStations() {
-        System.out.println("GraphService: Building Graph from LineStations...");
-        List<Station> stations = stationMapper.selectList(null);
-        List<LineStation> lineStations = lineStationMapper.selectList(null);
-
-        graph.clear();
-        nodeNames.clear();
-        nameToNodeIds.clear();
-        nodeToCode.clear();
-        nodeToLineId.clear();
-        stationIdToLineStationIds.clear();
-
-        // 1. Build Lookup Maps
+    private CompactGraph buildGraphFromLineStations(Map<Long, Line> lineInfoMap, List<Station> stations,
+                                                    List<LineStation> lineStations) {
+        log.debug("Building graph from {} line stations", lineStations.size());
+
+        // 1. Build Lookup Maps & assign dense node indices (one per LineStation)
         Map<Long, Station> stationMap = stations.stream().collect(Collectors.toMap(Station::getId, s -> s));
-        
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        // Station ID -> node indices (to detect transfers via Station ID)
+        Map<Long, List<Integer>> stationIdToNodes = new HashMap<>();
+
         for (LineStation ls : lineStations) {
-            Long nodeId = ls.getId(); // Use LineStation.ID as Node ID
             Station s = stationMap.get(ls.getStationId());
-            
-            if (s != null) {
-                graph.put(nodeId, new HashSet<>());
-                nodeNames.put(nodeId, s.getName());
-                nameToNodeIds.computeIfAbsent(s.getName(), k -> new ArrayList<>()).add(nodeId);
-                nodeToCode.put(nodeId, s.getCode());
-                nodeToLineId.put(nodeId, ls.getLineId());
-                
-                stationIdToLineStationIds.computeIfAbsent(ls.getStationId(), k -> new ArrayList<>()).add(nodeId);
+            Line line = lineInfoMap.get(ls.getLineId());
+
+            // Deactivated lines and stations stay in the tables for existing orders but are not routable
+            if (s != null && isActive(s.getIsActive()) && (line == null || isActive(line.getIsActive()))) {
+                int node = builder.addNode(ls.getId(), ls.getLineId(), ls.getStationId(), s.getName(), s.getCode());
+                builder.coordinates(node, s.getLng(), s.getLat());
+                stationIdToNodes.computeIfAbsent(ls.getStationId(), k -> new ArrayList<>()).add(node);
             }
         }
 
@@ -122,67 +370,67 @@ public class GraphService {
 
         for (List<LineStation> line : byLine.values()) {
             line.sort(Comparator.comparingInt(LineStation::getSeq));
-            for (int i = 0; i < line.size() - 1; i++) {
-                Long id1 = line.get(i).getId();
-                Long id2 = line.get(i + 1).getId();
-                
-                if (graph.containsKey(id1) && graph.containsKey(id2)) {
-                    graph.get(id1).add(id2);
-                    graph.get(id2).add(id1);
+            // Trains run through a closed station, so link its neighbours directly
+            int u = -1;
+            for (LineStation ls : line) {
+                int v = builder.indexOf(ls.getId());
+                if (v < 0) continue;
+                if (u >= 0) {
+                    builder.connect(u, v);
                 }
+                u = v;
             }
         }
 
         // 3. Add Transfer Edges
-        for (List<Long> lsIds : stationIdToLineStationIds.values()) {
-            if (lsIds.size() > 1) connectAll(lsIds);
+        for (List<Integer> nodes : stationIdToNodes.values()) {
+            if (nodes.size() > 1) connectAll(builder, nodes);
         }
-        for (List<Long> lsIds : nameToNodeIds.values()) {
-            if (lsIds.size() > 1) connectAll(lsIds);
+        for (List<Integer> nodes : builder.nodesByName().values()) {
+            if (nodes.size() > 1) connectAll(builder, nodes);
         }
         
-        System.out.println("GraphService: Graph built with " + graph.size() + " nodes.");
+        CompactGraph graph = builder.build(properties.getCostPerStation(), properties.getCostPerTransfer());
+        log.info("Graph built with {} nodes, {} arcs", graph.nodeCount(), graph.edgeCount());
+        return graph;
     }
     
-    private void connectAll(List<Long> ids) {
-        for (int i = 0; i < ids.size(); i++) {
-            for (int j = i + 1; j < ids.size(); j++) {
-                Long id1 = ids.get(i);
-                Long id2 = ids.get(j);
+    private static boolean isActive(Integer flag) {
+        return flag == null || flag == 1;
+    }
+
+    private void connectAll(CompactGraph.Builder builder, List<Integer> nodes) {
+        for (int i = 0; i < nodes.size(); i++) {
+            for (int j = i + 1; j < nodes.size(); j++) {
+                int u = nodes.get(i);
+                int v = nodes.get(j);
                 
-                if (!Objects.equals(nodeToLineId.get(id1), nodeToLineId.get(id2))) {
-                    graph.get(id1).add(id2);
-                    graph.get(id2).add(id1);
+                if (builder.lineId(u) != builder.lineId(v)) {
+                    builder.connect(u, v);
                 }
             }
         }
     }
     
-    public boolean isTransfer(Long id1, Long id2) {
-        Long l1 = nodeToLineId.get(id1);
-        Long l2 = nodeToLineId.get(id2);
-        return !Objects.equals(l1, l2);
-    }
-    
     // Public Accessors
-    public List<Long> getIdsByName(String name) {
-        return nameToNodeIds.getOrDefault(name, Collections.emptyList());
+    public GraphSnapshot snapshot() {
+        return current.get();
     }
-    
-    public String getCodeById(Long id) {
-        return nodeToCode.get(id);
+
+    public long getVersion() {
+        return current.get().version();
     }
-    
-    public String getNameById(Long id) {
-        return nodeNames.get(id);
+
+    public CompactGraph getGraph() {
+        return current.get().graph();
     }
-    
-    public Long getLineIdByNodeId(Long id) {
-        return nodeToLineId.get(id);
+
+    public StationDirectory getStationDirectory() {
+        return current.get().stations();
     }
-    
+
     public Line getLineInfo(Long lineId) {
-        return lineInfoMap.get(lineId);
+        return lineId != null ? current.get().line(lineId) : null;
     }
     
     public String getLineColor(String lineName, String dbColor) {
@@ -220,76 +468,9 @@ public class GraphService {
     }
     
     public boolean isEmpty() {
-        return graph.isEmpty();
+        return current.get().isEmpty();
     }
 
-    // Dijkstra Algorithm
-    public PathResult findPath(List<Long> startIds, List<Long> endIds) {
-        PriorityQueue<Node> pq = new PriorityQueue<>(Comparator.comparingInt(n -> n.cost));
-        Map<Long, Integer> dist = new HashMap<>();
-        Map<Long, Long> parent = new HashMap<>();
-        
-        for (Long startId : startIds) {
-            pq.add(new Node(startId, 0));
-            dist.put(startId, 0);
-            parent.put(startId, null);
-        }
-        
-        Set<Long> endIdSet = new HashSet<>(endIds);
-        
-        while(!pq.isEmpty()) {
-            Node current = pq.poll();
-            Long u = current.id;
-            
-            if (current.cost > dist.getOrDefault(u, Integer.MAX_VALUE)) continue;
-            
-            if (endIdSet.contains(u)) {
-                // Found! Reconstruct.
-                List<Long> path = new ArrayList<>();
-                Long curr = u;
-                while(curr != null) {
-                    path.add(curr);
-                    curr = parent.get(curr);
-                }
-                Collections.reverse(path);
-                
-                int stationCount = 0;
-                for (int i = 0; i < path.size() - 1; i++) {
-                     if (!isTransfer(path.get(i), path.get(i+1))) {
-                         stationCount++;
-                     }
-                }
-                
-                return new PathResult(stationCount, path);
-            }
-            
-            if (graph.containsKey(u)) {
-                for (Long v : graph.get(u)) {
-                    boolean isTransfer = isTransfer(u, v);
-                    // Use configurable costs
-                    int weight = isTransfer ? costPerTransfer : costPerStation;
-                    int newCost = current.cost + weight;
-                    
-                    if (newCost < dist.getOrDefault(v, Integer.MAX_VALUE)) {
-                        dist.put(v, newCost);
-                        parent.put(v, u);
-                        pq.add(new Node(v, newCost));
-                    }
-                }
-            }
-        }
-        return null;
-    }
-    
-    private static class Node {
-        Long id;
-        int cost;
-        public Node(Long id, int cost) { this.id = id; this.cost = cost; }
-    }
-    
-    public static class PathResult {
-        public int distance;
-        public List<Long> pathIds;
-        public PathResult(int d, List<Long> p) { this.distance = d; this.pathIds = p; }
+    private record NetworkRows(List<Line> lines, List<Station> stations, List<LineStation> lineStations) {
     }
 }
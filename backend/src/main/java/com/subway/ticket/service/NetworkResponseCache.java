@@ -0,0 +1,200 @@
+package com.subway.ticket.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.subway.ticket.domain.Line;
+import com.subway.ticket.domain.Station;
+import com.subway.ticket.service.graph.GraphReloadedEvent;
+import com.subway.ticket.service.graph.GraphSnapshot;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ready-to-send JSON for the static network endpoints: active lines, all active stations and
+ * the stations of each line. The bodies are serialized once per graph snapshot from the station
+ * directory and line map, so requests neither query MySQL nor run Jackson. Each body carries a
+ * strong ETag taken from its content, which stays the same across restarts and across graph
+ * versions that did not change it, so kiosks and apps mostly get a 304.
+ */
+@Service
+public class NetworkResponseCache {
+
+    // Smaller bodies are not worth a gzip variant
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    private final GraphService graphService;
+    private final ObjectMapper objectMapper;
+
+    private volatile Responses current;
+
+    public NetworkResponseCache(GraphService graphService, ObjectMapper objectMapper) {
+        this.graphService = graphService;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener
+    public void onGraphReloaded(GraphReloadedEvent event) {
+        current = build(event.getSnapshot());
+    }
+
+    public JsonBody lines() {
+        return responses().lines;
+    }
+
+    public JsonBody allStations() {
+        return responses().allStations;
+    }
+
+    public JsonBody stationsOfLine(long lineId) {
+        Responses r = responses();
+        return r.byLine.getOrDefault(lineId, r.emptyList);
+    }
+
+    private Responses responses() {
+        GraphSnapshot snapshot = graphService.snapshot();
+        Responses r = current;
+        if (r == null || r.version != snapshot.version()) {
+            r = build(snapshot);
+            current = r;
+        }
+        return r;
+    }
+
+    private Responses build(GraphSnapshot snapshot) {
+        List<Line> lines = new ArrayList<>();
+        for (Line l : snapshot.lines().values()) {
+            if (isActive(l.getIsActive())) lines.add(l);
+        }
+        lines.sort(Comparator.comparing(Line::getId));
+
+        List<Station> stations = new ArrayList<>();
+        Map<Long, List<Station>> byLine = new LinkedHashMap<>();
+        for (Station s : snapshot.stations().all()) {
+            if (!isActive(s.getIsActive())) continue;
+            Station copy = StationService.withLine(s, s.getLineId() != null ? snapshot.line(s.getLineId()) : null);
+            stations.add(copy);
+            if (s.getLineId() != null) byLine.computeIfAbsent(s.getLineId(), k -> new ArrayList<>()).add(copy);
+        }
+
+        Map<Long, JsonBody> lineBodies = new HashMap<>();
+        byLine.forEach((lineId, list) -> lineBodies.put(lineId, serialize(list)));
+        return new Responses(snapshot.version(), serialize(lines), serialize(stations), lineBodies, serialize(List.of()));
+    }
+
+    private static boolean isActive(Integer flag) {
+        return flag != null && flag == 1;
+    }
+
+    private JsonBody serialize(Object value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json), 0, 16);
+            return new JsonBody(json, json.length >= GZIP_MIN_BYTES ? gzip(json) : null, hash);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not serialize network response", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private record Responses(long version, JsonBody lines, JsonBody allStations, Map<Long, JsonBody> byLine,
+                             JsonBody emptyList) {
+    }
+
+    /**
+     * One serialized body, plain and (for larger ones) gzip-compressed.
+     */
+    public static final class JsonBody {
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String hash;
+
+        JsonBody(byte[] json, byte[] gzip, String hash) {
+            this.json = json;
+            this.gzip = gzip;
+            this.hash = hash;
+        }
+
+        /**
+         * 304 when the client already has this representation, otherwise the stored bytes.
+         * The two encodings are different representations and get different strong ETags.
+         */
+        public ResponseEntity<byte[]> toResponse(WebRequest request) {
+            String accept = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+            boolean gzipped = gzip != null && acceptsGzip(accept);
+            String etag = "\"" + hash + (gzipped ? "-gz" : "") + "\"";
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag)
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+            }
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .contentType(MediaType.APPLICATION_JSON);
+            if (gzipped) builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return builder.body(gzipped ? gzip : json);
+        }
+    }
+
+    /**
+     * Whether an Accept-Encoding header allows gzip: listed (or covered by {@code *}) with a
+     * q-value above 0. {@code gzip;q=0} is a refusal.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        Double gzipQ = null;
+        Double anyQ = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1.0;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQ = gzipQ == null ? q : Math.max(gzipQ, q);
+            } else if (coding.equals("*")) {
+                anyQ = q;
+            }
+        }
+        if (gzipQ != null) return gzipQ > 0;
+        return anyQ != null && anyQ > 0;
+    }
+}
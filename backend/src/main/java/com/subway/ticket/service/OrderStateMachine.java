@@ -0,0 +1,102 @@
+package com.subway.ticket.service;
+
+import com.subway.ticket.domain.Order;
+import com.subway.ticket.domain.Payment;
+import com.subway.ticket.domain.QrcodeToken;
+import com.subway.ticket.domain.Ticket;
+import com.subway.ticket.domain.enums.OrderStatus;
+import com.subway.ticket.exception.BusinessException;
+import com.subway.ticket.repository.PaymentMapper;
+import com.subway.ticket.repository.TicketMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Order lifecycle {@code CREATED -> PAID -> COMPLETED}. Every transition is one conditional
+ * {@code UPDATE ... WHERE id = ? AND status = ?}; the affected-row count says whether this caller
+ * made the move, so two payments or two gates racing on one order need no row lock held across a
+ * read-modify-write, and only the winner writes its payment or ticket, in the same transaction.
+ */
+@Service
+public class OrderStateMachine {
+
+    static final String TRANSITION_SQL =
+            "UPDATE orders SET status = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ? AND status = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PaymentMapper paymentMapper;
+    private final TicketMapper ticketMapper;
+
+    public OrderStateMachine(JdbcTemplate jdbcTemplate, PaymentMapper paymentMapper, TicketMapper ticketMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.paymentMapper = paymentMapper;
+        this.ticketMapper = ticketMapper;
+    }
+
+    public static boolean isAllowed(OrderStatus from, OrderStatus to) {
+        return (from == OrderStatus.CREATED && to == OrderStatus.PAID)
+                || (from == OrderStatus.PAID && to == OrderStatus.COMPLETED);
+    }
+
+    /**
+     * Moves the order from {@code from} to {@code to}; false when it was not in {@code from}
+     * (missing, or another caller moved it first).
+     */
+    public boolean transition(long orderId, OrderStatus from, OrderStatus to) {
+        if (!isAllowed(from, to)) {
+            throw new IllegalArgumentException("Order transition " + from + " -> " + to + " is not allowed");
+        }
+        return jdbcTemplate.update(TRANSITION_SQL, to.name(), orderId, from.name()) == 1;
+    }
+
+    /**
+     * CREATED -> PAID and the payment row, together.
+     */
+    @Transactional
+    public Payment pay(Order order, String channel) {
+        if (!transition(order.getId(), OrderStatus.CREATED, OrderStatus.PAID)) {
+            throw new BusinessException("ORDER_NOT_PAYABLE", "订单已支付或不存在");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Payment p = new Payment();
+        p.setOrderId(order.getId());
+        p.setAmount(order.getPrice() != null ? order.getPrice() : BigDecimal.ZERO);
+        p.setStatus("SUCCESS");
+        p.setPaidAt(now);
+        p.setChannel(channel);
+        p.setCreatedAt(now);
+        paymentMapper.insert(p);
+        order.setStatus(OrderStatus.PAID);
+        return p;
+    }
+
+    /**
+     * PAID -> COMPLETED and the ticket row, together. Returns false, writing nothing, when the
+     * order was not PAID, e.g. because another gate issued it first.
+     */
+    @Transactional
+    public boolean issue(Order order, QrcodeToken token, LocalDateTime issuedAt) {
+        if (!transition(order.getId(), OrderStatus.PAID, OrderStatus.COMPLETED)) return false;
+        recordTicket(order, token, issuedAt);
+        order.setStatus(OrderStatus.COMPLETED);
+        return true;
+    }
+
+    /**
+     * The ticket row for an order this caller already moved to COMPLETED.
+     */
+    public void recordTicket(Order order, QrcodeToken token, LocalDateTime issuedAt) {
+        Ticket ticket = new Ticket();
+        ticket.setOrderId(order.getId());
+        ticket.setQrcodeTokenId(token.getId());
+        ticket.setIssuedAt(issuedAt);
+        ticket.setStatus("DISPENSED");
+        ticket.setCreatedAt(issuedAt);
+        ticket.setUpdatedAt(issuedAt);
+        ticketMapper.insert(ticket);
+    }
+}
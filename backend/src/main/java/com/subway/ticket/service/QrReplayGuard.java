@@ -0,0 +1,94 @@
+package com.subway.ticket.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.subway.ticket.domain.Order;
+import com.subway.ticket.domain.enums.OrderStatus;
+import com.subway.ticket.repository.OrderMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory record of consumed orders and nonces for the kiosk validation hot path.
+ * Entries only need to live until the QR codes that could reference them have expired,
+ * so they are kept with that expiry and purged periodically. Within one instance the
+ * order entry is also the issuance claim (see {@link #tryConsume}); across instances the
+ * conditional PAID -> COMPLETED update on the orders table is the authority.
+ */
+@Slf4j
+@Service
+public class QrReplayGuard {
+
+    // QR codes are valid for 15 minutes after they are generated
+    public static final long QR_TTL_SECONDS = 15 * 60;
+
+    private final OrderMapper orderMapper;
+
+    // orderId / nonce -> epoch second after which the entry can be forgotten
+    private final ConcurrentHashMap<Long, Long> consumedOrders = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> consumedNonces = new ConcurrentHashMap<>();
+
+    public QrReplayGuard(OrderMapper orderMapper) {
+        this.orderMapper = orderMapper;
+    }
+
+    public boolean isConsumed(long orderId, String nonce) {
+        return consumedOrders.containsKey(orderId) || (nonce != null && consumedNonces.containsKey(nonce));
+    }
+
+    public void markConsumed(long orderId, String nonce, long exp) {
+        long until = until(exp);
+        consumedOrders.merge(orderId, until, Math::max);
+        if (nonce != null) consumedNonces.merge(nonce, until, Math::max);
+    }
+
+    /**
+     * Marks the order consumed unless it already is; true only for the one caller that did.
+     * The mark outlives the QR code, so a gate that read the order before it was completed
+     * still loses.
+     */
+    public boolean tryConsume(long orderId, long exp) {
+        return consumedOrders.putIfAbsent(orderId, until(exp)) == null;
+    }
+
+    // Undoes tryConsume when nothing was dispensed
+    public void release(long orderId) {
+        consumedOrders.remove(orderId);
+    }
+
+    private static long until(long exp) {
+        return Math.max(exp, Instant.now().getEpochSecond() + QR_TTL_SECONDS);
+    }
+
+    // After a restart, orders completed within the QR lifetime could still be presented again
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        try {
+            List<Order> recent = orderMapper.selectList(new QueryWrapper<Order>()
+                    .select("id")
+                    .eq("status", OrderStatus.COMPLETED.name())
+                    .ge("updated_at", LocalDateTime.now().minusSeconds(QR_TTL_SECONDS)));
+            long until = Instant.now().getEpochSecond() + QR_TTL_SECONDS;
+            for (Order o : recent) {
+                consumedOrders.put(o.getId(), until);
+            }
+            log.info("QrReplayGuard preloaded {} recently completed orders", recent.size());
+        } catch (Exception e) {
+            log.warn("QrReplayGuard preload failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeExpired() {
+        long now = Instant.now().getEpochSecond();
+        consumedOrders.values().removeIf(until -> until < now);
+        consumedNonces.values().removeIf(until -> until < now);
+    }
+}
@@ -1,45 +1,215 @@
 package com.subway.ticket.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 
 public class QrSignService {
-    private final String secret;
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec keySpec;
+
+    // Initialised Mac instances (plus a scratch buffer) are pooled rather than thread-local,
+    // so virtual threads reuse them as well instead of paying provider lookup and key setup
+    private final ConcurrentLinkedQueue<Signer> signers = new ConcurrentLinkedQueue<>();
 
-    public QrSignService(String secret) {
-        this.secret = secret;
+    private final Timer signTimer;
+    private final Timer verifyTimer;
+
+    public QrSignService(String secret, MeterRegistry meterRegistry) {
+        this.keySpec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.signTimer = Timer.builder("qr.hmac").description("HMAC-SHA256 over a QR payload")
+                .tag("op", "sign").register(meterRegistry);
+        this.verifyTimer = Timer.builder("qr.hmac").description("HMAC-SHA256 over a QR payload")
+                .tag("op", "verify").register(meterRegistry);
     }
 
     public String sign(String data) {
+        long start = System.nanoTime();
+        String sig = encode(mac(data));
+        signTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return sig;
+    }
+
+    /**
+     * Signs the QR payload "orderId:nonce:exp" without building the joined String.
+     */
+    public String sign(long orderId, String nonce, long exp) {
+        long start = System.nanoTime();
+        String sig = encode(mac(orderId, nonce, exp));
+        signTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return sig;
+    }
+
+    /**
+     * Signs the self-contained gate payload "orderId:nonce:exp:fromStationId:toStationId".
+     * QR codes are only issued for PAID orders, so a valid signature doubles as the status snapshot.
+     */
+    public String sign(long orderId, String nonce, long exp, long fromStationId, long toStationId) {
+        long start = System.nanoTime();
+        String sig = encode(mac(orderId, nonce, exp, fromStationId, toStationId));
+        signTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return sig;
+    }
+
+    public boolean verify(String data, String signature) {
+        long start = System.nanoTime();
+        byte[] expected = decode(signature);
+        boolean ok = expected != null && MessageDigest.isEqual(mac(data), expected);
+        verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return ok;
+    }
+
+    public boolean verify(long orderId, String nonce, long exp, String signature) {
+        long start = System.nanoTime();
+        byte[] expected = decode(signature);
+        boolean ok = expected != null && MessageDigest.isEqual(mac(orderId, nonce, exp), expected);
+        verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return ok;
+    }
+
+    public boolean verify(long orderId, String nonce, long exp, long fromStationId, long toStationId, String signature) {
+        long start = System.nanoTime();
+        byte[] expected = decode(signature);
+        boolean ok = expected != null && MessageDigest.isEqual(mac(orderId, nonce, exp, fromStationId, toStationId), expected);
+        verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return ok;
+    }
+
+    public byte[] mac(String data) {
+        Signer s = acquire();
+        try {
+            s.len = 0;
+            s.putString(data);
+            return s.doFinal();
+        } finally {
+            signers.offer(s);
+        }
+    }
+
+    public byte[] mac(long orderId, String nonce, long exp) {
+        Signer s = acquire();
+        try {
+            s.len = 0;
+            s.putLong(orderId);
+            s.put((byte) ':');
+            s.putString(nonce);
+            s.put((byte) ':');
+            s.putLong(exp);
+            return s.doFinal();
+        } finally {
+            signers.offer(s);
+        }
+    }
+
+    public byte[] mac(long orderId, String nonce, long exp, long fromStationId, long toStationId) {
+        Signer s = acquire();
+        try {
+            s.len = 0;
+            s.putLong(orderId);
+            s.put((byte) ':');
+            s.putString(nonce);
+            s.put((byte) ':');
+            s.putLong(exp);
+            s.put((byte) ':');
+            s.putLong(fromStationId);
+            s.put((byte) ':');
+            s.putLong(toStationId);
+            return s.doFinal();
+        } finally {
+            signers.offer(s);
+        }
+    }
+
+    private Signer acquire() {
+        Signer s = signers.poll();
+        if (s != null) return s;
         try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec keySpec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+            Mac mac = Mac.getInstance(ALGORITHM);
             mac.init(keySpec);
-            byte[] h = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            return Base64.getUrlEncoder().withoutPadding().encodeToString(h);
-        } catch (Exception e) {
+            return new Signer(mac);
+        } catch (GeneralSecurityException e) {
             throw new RuntimeException("SIGN_ERROR" + e.getMessage(), e);
         }
     }
 
-    public boolean verify(String data, String signature) {
-        String s = sign(data);
-        return constantEquals(s, signature);
-    }
-
-    private boolean constantEquals(String a, String b) {
-        if (a == null || b == null) return false;
-        int n1 = a.length();
-        int n2 = b.length();
-        int n = Math.max(n1, n2);
-        int res = 0;
-        for (int i = 0; i < n; i++) {
-            char c1 = i < n1 ? a.charAt(i) : 0;
-            char c2 = i < n2 ? b.charAt(i) : 0;
-            res |= c1 ^ c2;
-        }
-        return res == 0;
+    private static String encode(byte[] h) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(h);
+    }
+
+    private static byte[] decode(String signature) {
+        if (signature == null) return null;
+        try {
+            return Base64.getUrlDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static final class Signer {
+        final Mac mac;
+        byte[] buf = new byte[128];
+        int len;
+
+        Signer(Mac mac) {
+            this.mac = mac;
+        }
+
+        void put(byte b) {
+            if (len == buf.length) buf = Arrays.copyOf(buf, len * 2);
+            buf[len++] = b;
+        }
+
+        // ASCII is copied straight into the buffer; anything else falls back to UTF-8 encoding
+        void putString(String s) {
+            if (s == null) return;
+            for (int i = 0, n = s.length(); i < n; i++) {
+                char c = s.charAt(i);
+                if (c >= 0x80) {
+                    len -= i;
+                    byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+                    for (byte b : utf8) put(b);
+                    return;
+                }
+                put((byte) c);
+            }
+        }
+
+        void putLong(long v) {
+            if (v < 0) {
+                put((byte) '-');
+                if (v == Long.MIN_VALUE) {
+                    putString("9223372036854775808");
+                    return;
+                }
+                v = -v;
+            }
+            int start = len;
+            do {
+                put((byte) ('0' + (v % 10)));
+                v /= 10;
+            } while (v != 0);
+            // digits were written least significant first
+            for (int i = start, j = len - 1; i < j; i++, j--) {
+                byte t = buf[i];
+                buf[i] = buf[j];
+                buf[j] = t;
+            }
+        }
+
+        byte[] doFinal() {
+            mac.update(buf, 0, len);
+            // doFinal also resets the Mac for the next caller
+            return mac.doFinal();
+        }
     }
 }
@@ -0,0 +1,65 @@
+package com.subway.ticket.service;
+
+import com.subway.ticket.dto.FareQuote;
+import com.subway.ticket.exception.BusinessException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+
+/**
+ * Signed, short-lived quote tokens: {@code q1.from.to.segments.cents.network.tariffVersion.exp.sign},
+ * where from / to are station ids, network is the snapshot's network tag, so any instance serving
+ * the same network accepts the token, and sign is the HMAC of everything before it. Creating an order
+ * from a token costs one HMAC instead of a second route search.
+ */
+@Service
+public class QuoteTokenService {
+
+    // Keeps these payloads apart from the numeric QR payloads signed with the same key
+    private static final String PREFIX = "q1.";
+
+    private final QrSignService signService;
+    private final long ttlSeconds;
+
+    public QuoteTokenService(QrSignService signService,
+                             @Value("${subway.quote-token.ttl-seconds:300}") long ttlSeconds) {
+        this.signService = signService;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public record Claims(FareQuote.Basis basis, int segments, long exp) {
+    }
+
+    public String issue(FareQuote quote) {
+        FareQuote.Basis b = quote.getBasis();
+        long exp = Instant.now().plusSeconds(ttlSeconds).getEpochSecond();
+        String data = PREFIX + b.fromStationId() + "." + b.toStationId() + "." + quote.getSegments() + "." + b.cents()
+                + "." + b.networkTag() + "." + b.tariffVersion() + "." + exp;
+        return data + "." + signService.sign(data);
+    }
+
+    /**
+     * Checks format and signature; expiry and versions are left to the caller, which may fall
+     * back to pricing the route again.
+     */
+    public Claims verify(String token) {
+        int cut = token.lastIndexOf('.');
+        if (!token.startsWith(PREFIX) || cut < 0 || !signService.verify(token.substring(0, cut), token.substring(cut + 1))) {
+            throw new BusinessException("QUOTE_INVALID", "报价凭证无效");
+        }
+        String[] f = token.substring(PREFIX.length(), cut).split("\\.");
+        try {
+            if (f.length != 7) throw new NumberFormatException(token);
+            FareQuote.Basis basis = new FareQuote.Basis(Long.parseLong(f[0]), Long.parseLong(f[1]),
+                    Integer.parseInt(f[3]), f[4], f[5]);
+            return new Claims(basis, Integer.parseInt(f[2]), Long.parseLong(f[6]));
+        } catch (NumberFormatException e) {
+            throw new BusinessException("QUOTE_INVALID", "报价凭证无效");
+        }
+    }
+
+    public boolean isExpired(Claims claims) {
+        return claims.exp() < Instant.now().getEpochSecond();
+    }
+}
@@ -1,91 +1,64 @@
 package com.subway.ticket.service;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.subway.ticket.domain.Line;
 import com.subway.ticket.domain.Station;
-import com.subway.ticket.repository.LineMapper;
 import com.subway.ticket.repository.StationMapper;
+import com.subway.ticket.service.graph.GraphSnapshot;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Function;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 @Service
 public class StationService {
 
+    private static final int SEARCH_LIMIT = 50;
+
     private final StationMapper stationMapper;
-    private final LineMapper lineMapper;
+    private final GraphService graphService;
 
-    public StationService(StationMapper stationMapper, LineMapper lineMapper) {
+    public StationService(StationMapper stationMapper, GraphService graphService) {
         this.stationMapper = stationMapper;
-        this.lineMapper = lineMapper;
-    }
-
-    public List<Station> getStationsByLine(Long lineId) {
-        List<Station> stations = stationMapper.selectList(new QueryWrapper<Station>()
-                .eq("line_id", lineId)
-                .eq("is_active", 1)
-                .orderByAsc("id"));
-        populateLineNames(stations);
-        return stations;
-    }
-
-    public List<Station> getAllStations() {
-        List<Station> stations = stationMapper.selectList(new QueryWrapper<Station>()
-                .eq("is_active", 1)
-                .orderByAsc("id"));
-        populateLineNames(stations);
-        return stations;
+        this.graphService = graphService;
     }
 
+    /**
+     * Typeahead search served from the in-memory index of the current graph snapshot (Chinese
+     * name, pinyin, initials, English name); a blank keyword lists every station.
+     */
     public List<Station> searchStations(String keyword) {
-        QueryWrapper<Station> query = new QueryWrapper<>();
-        query.eq("is_active", 1);
-        
-        if (keyword != null && !keyword.trim().isEmpty()) {
-            query.like("name", keyword);
-            // Limit only when searching to avoid huge result if user spams search
-            query.last("LIMIT 50");
+        GraphSnapshot snapshot = graphService.snapshot();
+        boolean blank = keyword == null || keyword.trim().isEmpty();
+        // Limit only when searching to avoid huge result if user spams search
+        List<Station> hits = snapshot.stations().search(keyword, blank ? Integer.MAX_VALUE : SEARCH_LIMIT);
+        List<Station> result = new ArrayList<>(hits.size());
+        for (Station s : hits) {
+            result.add(withLine(s, s.getLineId() != null ? snapshot.line(s.getLineId()) : null));
         }
-        
-        List<Station> list = stationMapper.selectList(query);
-        populateLineNames(list);
-        
-        // Deduplicate by name (since transfer stations have multiple records)
-        return list.stream()
-                .filter(distinctByKey(Station::getName))
-                .collect(Collectors.toList());
+        return result;
     }
 
-    private void populateLineNames(List<Station> stations) {
-        if (stations == null || stations.isEmpty()) return;
-        
-        // Get all unique line IDs
-        List<Long> lineIds = stations.stream()
-                .map(Station::getLineId)
-                .distinct()
-                .collect(Collectors.toList());
-        
-        // Fetch lines and create maps
-        List<Line> lines = lineMapper.selectByIds(lineIds);
-        Map<Long, String> lineNameMap = lines.stream()
-                .collect(Collectors.toMap(Line::getId, Line::getName));
-        Map<Long, String> lineColorMap = lines.stream()
-                .collect(Collectors.toMap(Line::getId, Line::getColor));
-        
-        // Populate line names and colors
-        stations.forEach(s -> {
-            s.setLineName(lineNameMap.get(s.getLineId()));
-            String color = lineColorMap.get(s.getLineId());
-            s.setLineColor(ensureHashPrefix(color));
-        });
+    /**
+     * Copy of a directory row with lineName / lineColor filled in for API responses; the shared
+     * snapshot rows themselves are never modified.
+     */
+    static Station withLine(Station s, Line line) {
+        Station copy = new Station();
+        copy.setId(s.getId());
+        copy.setName(s.getName());
+        copy.setPinyin(s.getPinyin());
+        copy.setEnName(s.getEnName());
+        copy.setLineId(s.getLineId());
+        copy.setCode(s.getCode());
+        copy.setLng(s.getLng());
+        copy.setLat(s.getLat());
+        copy.setIsActive(s.getIsActive());
+        copy.setLineName(line != null ? line.getName() : null);
+        copy.setLineColor(ensureHashPrefix(line != null ? line.getColor() : null));
+        return copy;
     }
 
-    private String ensureHashPrefix(String color) {
+    static String ensureHashPrefix(String color) {
         if (color == null || color.isEmpty()) return "#999";
         if (color.startsWith("#")) return color;
         if (color.matches("^[0-9a-fA-F]{3,6}$")) {
@@ -95,12 +68,8 @@ public class StationService {
     }
 
     public String getStationNameById(Long id) {
-        Station s = stationMapper.selectById(id);
+        Station s = graphService.getStationDirectory().byId(id);
+        if (s == null) s = stationMapper.selectById(id);
         return s != null ? s.getName() : "Unknown";
     }
-
-    private static <T> Predicate<T> distinctByKey(Function<? super T, ?> keyExtractor) {
-        Map<Object, Boolean> seen = new ConcurrentHashMap<>();
-        return t -> seen.putIfAbsent(keyExtractor.apply(t), Boolean.TRUE) == null;
-    }
 }
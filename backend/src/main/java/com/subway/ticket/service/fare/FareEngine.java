@@ -0,0 +1,152 @@
+package com.subway.ticket.service.fare;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.subway.ticket.config.FareProperties;
+import com.subway.ticket.domain.FareRule;
+import com.subway.ticket.repository.FareRuleMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the compiled {@link FareSchedule}. With {@code subway.fare.source: table} the active
+ * fare_rule rows are compiled at startup and recompiled when a cheap fingerprint of the table
+ * changes, so tariffs can be edited without a restart; the YAML source is compiled once.
+ */
+@Slf4j
+@Service
+public class FareEngine {
+
+    // fare_rule is a handful of rows, so every column that affects a price is folded into a CRC sum
+    private static final String FINGERPRINT_SQL = "SELECT CONCAT_WS(':', COUNT(*), COALESCE(SUM(CRC32(CONCAT_WS(',', "
+            + "id, rule_type, base_price, per_segment_price, base_segments, day_type, start_time, end_time, is_active))), 0))"
+            + " FROM fare_rule";
+
+    private final FareProperties properties;
+    private final FareRuleMapper fareRuleMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Clock clock;
+
+    private final AtomicReference<FareSchedule> current = new AtomicReference<>();
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    // fare_rule fingerprint the current schedule was compiled under; guarded by reloadLock
+    private String fingerprint;
+
+    public FareEngine(FareProperties properties, FareRuleMapper fareRuleMapper, JdbcTemplate jdbcTemplate,
+                      ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.fareRuleMapper = fareRuleMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.clock = Clock.systemUTC();
+        // The YAML schedule is always valid, so quotes never see an empty engine
+        current.set(FareSchedule.fromProperties(properties));
+        Gauge.builder("fare.tariffs", current, c -> c.get().tariffs().size())
+                .description("Tariffs in the compiled fare schedule")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (usesTable()) reload();
+        log.info("Fare schedule {} from {}: {}", current.get().version(), current.get().source(), tariffNames());
+    }
+
+    public FareSchedule schedule() {
+        return current.get();
+    }
+
+    // Tariff in force right now
+    public Tariff tariff() {
+        return current.get().tariffAt(ZonedDateTime.now(clock));
+    }
+
+    @Scheduled(fixedDelayString = "${subway.fare.reload-check-interval-ms:30000}",
+            initialDelayString = "${subway.fare.reload-check-interval-ms:30000}")
+    public void scheduledCheck() {
+        if (usesTable()) reloadIfChanged();
+    }
+
+    /**
+     * Recompiles only when fare_rule changed since the current schedule.
+     */
+    public FareSchedule reloadIfChanged() {
+        if (!usesTable()) return current.get();
+        reloadLock.lock();
+        try {
+            // Read under the lock, so a concurrent reload cannot leave an older fingerprint behind
+            String fp = fingerprint();
+            if (fp != null && fp.equals(fingerprint)) return current.get();
+            return reload(fp);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * Unconditional recompile, e.g. from the admin endpoint.
+     */
+    public FareSchedule reload() {
+        reloadLock.lock();
+        try {
+            return reload(usesTable() ? fingerprint() : null);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    // Caller holds reloadLock; fp was read after taking it
+    private FareSchedule reload(String fp) {
+        FareSchedule next = compile();
+        if (next == null) return current.get();
+        fingerprint = fp;
+        // Same prices: keep the current tariff objects, which cached quotes are keyed on
+        if (next.version().equals(current.get().version())) return current.get();
+        current.set(next);
+        log.info("Fare schedule {} from {}: {}", next.version(), next.source(), tariffNames());
+        eventPublisher.publishEvent(new FareScheduleChangedEvent(next));
+        return next;
+    }
+
+    private FareSchedule compile() {
+        if (!usesTable()) return FareSchedule.fromProperties(properties);
+        try {
+            List<FareRule> rules = fareRuleMapper.selectList(new QueryWrapper<FareRule>()
+                    .eq("is_active", 1).orderByAsc("id"));
+            return FareSchedule.fromRules(rules, properties);
+        } catch (Exception e) {
+            // Keep pricing with what we have; the next check retries
+            log.warn("fare_rule unavailable, keeping schedule {}: {}", current.get().version(), e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean usesTable() {
+        return "table".equalsIgnoreCase(properties.getSource()) && fareRuleMapper != null;
+    }
+
+    private String fingerprint() {
+        try {
+            return jdbcTemplate.queryForObject(FINGERPRINT_SQL, String.class);
+        } catch (Exception e) {
+            log.warn("Fare rule fingerprint unavailable: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private List<String> tariffNames() {
+        return current.get().tariffs().stream().map(Tariff::name).toList();
+    }
+}
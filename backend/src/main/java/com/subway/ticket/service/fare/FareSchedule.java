@@ -0,0 +1,191 @@
+package com.subway.ticket.service.fare;
+
+import com.subway.ticket.config.FareProperties;
+import com.subway.ticket.domain.FareRule;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.CRC32C;
+
+/**
+ * Immutable set of compiled tariffs. Windowed tariffs are tried in declaration order and the
+ * all-day tariff answers everything else. {@link #version()} changes whenever any price could
+ * change, so it can key caches and ETags. Prices stay integer cents until {@link #yuan(int)}
+ * turns them into the API's BigDecimal.
+ */
+public final class FareSchedule {
+
+    private final String source;
+    private final ZoneId zone;
+    private final List<Tariff> windowed;
+    private final Tariff allDay;
+    private final String version;
+
+    private FareSchedule(String source, ZoneId zone, List<Tariff> windowed, Tariff allDay) {
+        this.source = source;
+        this.zone = zone;
+        this.windowed = List.copyOf(windowed);
+        this.allDay = allDay;
+        CRC32C crc = new CRC32C();
+        for (Tariff t : windowed) crc.update(t.key().getBytes(StandardCharsets.UTF_8));
+        crc.update(allDay.key().getBytes(StandardCharsets.UTF_8));
+        this.version = String.format("%08x", crc.getValue());
+    }
+
+    public String source() {
+        return source;
+    }
+
+    public String version() {
+        return version;
+    }
+
+    public ZoneId zone() {
+        return zone;
+    }
+
+    public List<Tariff> tariffs() {
+        List<Tariff> all = new ArrayList<>(windowed);
+        all.add(allDay);
+        return all;
+    }
+
+    // Version plus the tariff's position, short enough for an ETag
+    public String tag(Tariff tariff) {
+        int i = windowed.indexOf(tariff);
+        return version + "-" + (i >= 0 ? i : windowed.size());
+    }
+
+    // Whether a tariff with exactly these prices is still part of the schedule
+    public boolean hasTariff(String tariffVersion) {
+        if (allDay.version().equals(tariffVersion)) return true;
+        for (Tariff t : windowed) {
+            if (t.version().equals(tariffVersion)) return true;
+        }
+        return false;
+    }
+
+    public Tariff tariffAt(ZonedDateTime time) {
+        ZonedDateTime local = time.withZoneSameInstant(zone);
+        DayOfWeek day = local.getDayOfWeek();
+        LocalTime t = local.toLocalTime();
+        for (Tariff tariff : windowed) {
+            if (tariff.appliesAt(day, t)) return tariff;
+        }
+        return allDay;
+    }
+
+    public static BigDecimal yuan(int cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    static int cents(BigDecimal yuan) {
+        return yuan == null ? 0 : yuan.movePointRight(2).setScale(0, RoundingMode.HALF_UP).intValueExact();
+    }
+
+    /**
+     * The rules under {@code subway.fare} as the all-day tariff plus the configured tariffs list.
+     */
+    public static FareSchedule fromProperties(FareProperties props) {
+        Tariff.Formula base = formula(props.getRules(), props.getExtra(), props.getBasePrice(), 100);
+        List<Tariff> windowed = new ArrayList<>();
+        for (FareProperties.Tariff t : props.getTariffs()) {
+            Tariff.Formula f = t.getRules() == null && t.getExtra() == null
+                    ? withPercent(base, t.getPercent())
+                    : formula(t.getRules() != null ? t.getRules() : props.getRules(),
+                    t.getExtra() != null ? t.getExtra() : props.getExtra(), props.getBasePrice(), t.getPercent());
+            windowed.add(new Tariff(t.getName(), days(t.getDays()), time(t.getStart()), time(t.getEnd()), f,
+                    props.getTableSegments()));
+        }
+        return new FareSchedule("yaml", ZoneId.of(props.getZone()), windowed,
+                new Tariff("standard", Set.of(), null, null, base, props.getTableSegments()));
+    }
+
+    /**
+     * Active fare_rule rows in id order, one tariff each. The first row without a day or time
+     * restriction is the all-day tariff; without one, the YAML rules are.
+     */
+    public static FareSchedule fromRules(List<FareRule> rules, FareProperties props) {
+        List<Tariff> windowed = new ArrayList<>();
+        Tariff allDay = null;
+        for (FareRule r : rules) {
+            int base = cents(r.getBasePrice());
+            int included = r.getBaseSegments() != null ? r.getBaseSegments() : 0;
+            Tariff.Formula f = new Tariff.Formula(new int[0], new int[0], included, 1, base,
+                    cents(r.getPerSegmentPrice()), base, 100);
+            Tariff t = new Tariff(r.getRuleType(), days(split(r.getDayType())), r.getStartTime(), r.getEndTime(), f,
+                    props.getTableSegments());
+            if (!t.isAllDay()) {
+                windowed.add(t);
+            } else if (allDay == null) {
+                allDay = t;
+            }
+        }
+        if (allDay == null) {
+            allDay = new Tariff("standard", Set.of(), null, null,
+                    formula(props.getRules(), props.getExtra(), props.getBasePrice(), 100), props.getTableSegments());
+        }
+        return new FareSchedule("table", ZoneId.of(props.getZone()), windowed, allDay);
+    }
+
+    private static Tariff.Formula formula(List<FareProperties.Rule> rules, FareProperties.ExtraRule extra,
+                                          BigDecimal basePrice, int percent) {
+        int n = rules != null ? rules.size() : 0;
+        int[] tierSegments = new int[n];
+        int[] tierCents = new int[n];
+        for (int i = 0; i < n; i++) {
+            tierSegments[i] = rules.get(i).getDistance();
+            tierCents[i] = cents(rules.get(i).getPrice());
+        }
+        return extra != null
+                ? new Tariff.Formula(tierSegments, tierCents, extra.getStartDistance(), extra.getInterval(),
+                cents(extra.getBasePriceForExtra()), cents(extra.getPricePerInterval()), cents(basePrice), percent)
+                : new Tariff.Formula(tierSegments, tierCents, 0, 0, 0, 0, cents(basePrice), percent);
+    }
+
+    private static Tariff.Formula withPercent(Tariff.Formula f, int percent) {
+        return new Tariff.Formula(f.tierSegments(), f.tierCents(), f.tailStart(), f.tailInterval(), f.tailBase(),
+                f.tailStep(), f.fallback(), percent);
+    }
+
+    private static List<String> split(String dayType) {
+        return dayType == null || dayType.isBlank() ? List.of() : List.of(dayType.split(","));
+    }
+
+    private static Set<DayOfWeek> days(List<String> names) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        if (names == null) return days;
+        for (String raw : names) {
+            String name = raw.trim().toUpperCase(Locale.ROOT);
+            switch (name) {
+                case "" -> { }
+                case "DAILY" -> days.addAll(EnumSet.allOf(DayOfWeek.class));
+                case "WEEKDAY" -> days.addAll(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+                case "WEEKEND" -> days.addAll(EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY));
+                default -> days.add(dayOfWeek(name));
+            }
+        }
+        return days;
+    }
+
+    private static DayOfWeek dayOfWeek(String name) {
+        for (DayOfWeek d : DayOfWeek.values()) {
+            if (name.length() >= 3 && d.name().startsWith(name)) return d;
+        }
+        throw new IllegalArgumentException("Unknown day in fare tariff: " + name);
+    }
+
+    private static LocalTime time(String hhmm) {
+        return hhmm == null || hhmm.isBlank() ? null : LocalTime.parse(hhmm.trim());
+    }
+}
@@ -0,0 +1,17 @@
+package com.subway.ticket.service.fare;
+
+/**
+ * Published after a different fare schedule has been swapped in, so caches holding prices
+ * from the old one can drop them.
+ */
+public class FareScheduleChangedEvent {
+    private final FareSchedule schedule;
+
+    public FareScheduleChangedEvent(FareSchedule schedule) {
+        this.schedule = schedule;
+    }
+
+    public FareSchedule getSchedule() {
+        return schedule;
+    }
+}
@@ -0,0 +1,109 @@
+package com.subway.ticket.service.fare;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.zip.CRC32C;
+
+/**
+ * One compiled tariff. The price of every segment count below the table size is evaluated once
+ * when the schedule is compiled, so a quote is an array load; longer trips fall back to the
+ * formula the table was built from. All amounts are integer cents.
+ */
+public final class Tariff {
+
+    private final String name;
+    // Days and [start, end) window the tariff applies in; null times = all day
+    private final Set<DayOfWeek> days;
+    private final LocalTime start;
+    private final LocalTime end;
+    private final Formula formula;
+    private final int[] cents;
+    // Changes with anything that affects a price; quote tokens carry it
+    private final String version;
+
+    Tariff(String name, Set<DayOfWeek> days, LocalTime start, LocalTime end, Formula formula, int tableSegments) {
+        this.name = name;
+        this.days = days.isEmpty() ? EnumSet.allOf(DayOfWeek.class) : EnumSet.copyOf(days);
+        // A single bound runs to / from midnight
+        this.start = start == null && end == null ? null : start != null ? start : LocalTime.MIDNIGHT;
+        this.end = start == null && end == null ? null : end != null ? end : LocalTime.MIDNIGHT;
+        this.formula = formula;
+        this.cents = new int[Math.max(1, tableSegments)];
+        for (int s = 0; s < cents.length; s++) {
+            cents[s] = formula.cents(s);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(key().getBytes(StandardCharsets.UTF_8));
+        this.version = String.format("%08x", crc.getValue());
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String version() {
+        return version;
+    }
+
+    public int cents(int segments) {
+        return segments >= 0 && segments < cents.length ? cents[segments] : formula.cents(segments);
+    }
+
+    // Applies every day, all day: the schedule's fallback tariff
+    boolean isAllDay() {
+        return start == null && days.size() == DayOfWeek.values().length;
+    }
+
+    boolean appliesAt(DayOfWeek day, LocalTime time) {
+        if (start == null) return days.contains(day);
+        if (!start.isAfter(end)) {
+            return days.contains(day) && !time.isBefore(start) && time.isBefore(end);
+        }
+        // Window past midnight belongs to the day it started on
+        if (!time.isBefore(start)) return days.contains(day);
+        return time.isBefore(end) && days.contains(day.minus(1));
+    }
+
+    // Stable description of everything that affects a price, for the schedule version
+    String key() {
+        return name + "|" + days + "|" + start + "|" + end + "|" + formula.key();
+    }
+
+    /**
+     * Price function a tariff is compiled from: the first tier whose segment limit covers the
+     * trip, otherwise the tail ({@code tailBase} plus {@code tailStep} per started
+     * {@code tailInterval} beyond {@code tailStart}), otherwise {@code fallback}; then scaled by
+     * {@code percent}, rounding half up to the cent.
+     */
+    record Formula(int[] tierSegments, int[] tierCents, int tailStart, int tailInterval, int tailBase,
+                   int tailStep, int fallback, int percent) {
+
+        int cents(int segments) {
+            return scale(base(segments));
+        }
+
+        private int base(int segments) {
+            for (int i = 0; i < tierSegments.length; i++) {
+                if (segments <= tierSegments[i]) return tierCents[i];
+            }
+            if (tailInterval > 0 && segments > tailStart) {
+                int steps = (segments - tailStart + tailInterval - 1) / tailInterval;
+                return tailBase + tailStep * steps;
+            }
+            return fallback;
+        }
+
+        private int scale(int cents) {
+            return percent == 100 ? cents : (int) ((cents * (long) percent + 50) / 100);
+        }
+
+        String key() {
+            return Arrays.toString(tierSegments) + Arrays.toString(tierCents) + "," + tailStart + "," + tailInterval
+                    + "," + tailBase + "," + tailStep + "," + fallback + "," + percent;
+        }
+    }
+}
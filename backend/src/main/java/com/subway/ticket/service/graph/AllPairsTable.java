@@ -0,0 +1,95 @@
+package com.subway.ticket.service.graph;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Precomputed station-by-station route table for small networks.
+ * Row i holds one shortest-path tree from every platform of station i; the matrices
+ * store, per (from, to) station pair, the segment count, search cost and the arrival node,
+ * while the per-row predecessor array acts as the next-hop table for rebuilding the path.
+ */
+public final class AllPairsTable {
+
+    private final CompactGraph graph;
+    private final int stationCount;
+    private final Map<String, Integer> stationIndex;
+    private final int[][] predecessors;
+    private final int[] endNode;
+    private final int[] segments;
+    private final int[] costs;
+
+    private AllPairsTable(CompactGraph graph, String[] names, int[][] predecessors, int[] endNode, int[] segments, int[] costs) {
+        this.graph = graph;
+        this.stationCount = names.length;
+        this.stationIndex = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            stationIndex.put(names[i], i);
+        }
+        this.predecessors = predecessors;
+        this.endNode = endNode;
+        this.segments = segments;
+        this.costs = costs;
+    }
+
+    /**
+     * Runs one full expansion per station on the given pool; rows are independent so they
+     * are filled in parallel without locking.
+     */
+    public static AllPairsTable build(CompactGraph graph, ForkJoinPool pool) {
+        String[] names = graph.stationNames();
+        int n = names.length;
+        int[][] predecessors = new int[n][];
+        int[] endNode = new int[n * n];
+        int[] segments = new int[n * n];
+        int[] costs = new int[n * n];
+
+        pool.submit(() -> IntStream.range(0, n).parallel().forEach(i -> {
+            ShortestPathTree tree = graph.shortestPathTree(graph.nodesByName(names[i]));
+            predecessors[i] = tree.parents();
+            int row = i * n;
+            for (int j = 0; j < n; j++) {
+                int t = tree.best(graph.nodesByName(names[j]));
+                endNode[row + j] = t;
+                segments[row + j] = t >= 0 ? tree.segments(t) : -1;
+                costs[row + j] = t >= 0 ? tree.cost(t) : Integer.MAX_VALUE;
+            }
+        })).join();
+
+        return new AllPairsTable(graph, names, predecessors, endNode, segments, costs);
+    }
+
+    public CompactGraph graph() {
+        return graph;
+    }
+
+    public int stationCount() {
+        return stationCount;
+    }
+
+    /**
+     * Segment count between two stations, -1 when unreachable or unknown.
+     */
+    public int segments(String fromName, String toName) {
+        int cell = cell(fromName, toName);
+        return cell >= 0 ? segments[cell] : -1;
+    }
+
+    /**
+     * O(1) lookup plus path rebuild from the predecessor row. Returns null when unreachable.
+     */
+    public PathResult lookup(String fromName, String toName) {
+        int cell = cell(fromName, toName);
+        if (cell < 0 || endNode[cell] < 0) return null;
+        int[] parent = predecessors[cell / stationCount];
+        return new PathResult(segments[cell], costs[cell], ShortestPathTree.walk(parent, endNode[cell]));
+    }
+
+    private int cell(String fromName, String toName) {
+        Integer i = stationIndex.get(fromName);
+        Integer j = stationIndex.get(toName);
+        return i == null || j == null ? -1 : i * stationCount + j;
+    }
+}
@@ -0,0 +1,620 @@
+package com.subway.ticket.service.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Line-station network in CSR form.
+ * Every LineStation row becomes one dense node index; neighbours of node u are
+ * targets[offsets[u] .. offsets[u + 1]) with the matching entry in weights.
+ * Instances are immutable once built and safe to share between request threads.
+ * <p>
+ * Searches order labels by a packed long key rather than the bare cost: cost in the high
+ * bits, then riding segments, then a fixed per-edge tie value. The key is additive along
+ * a path, so every algorithm minimises cost first and resolves equal-cost routes the same way
+ * (fewer stations, then a fixed edge order). Dijkstra, A*, bidirectional search and the
+ * all-pairs table therefore all return the same route for a pair.
+ */
+public final class CompactGraph {
+
+    private static final int[] NO_NODES = new int[0];
+    private static final int COST_SHIFT = 40;
+
+    private final int nodeCount;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private final long[] keys;
+    private final int costPerStation;
+    private final int costPerTransfer;
+
+    // Per-node attributes, indexed by dense node index
+    private final long[] nodeIds;
+    private final long[] lineIds;
+    private final long[] stationIds;
+    private final String[] names;
+    private final String[] codes;
+
+    // Station coordinates projected to a local plane in km (NaN when unknown) and the largest
+    // factor that keeps rate * straight-line distance below the cost of any edge, i.e. the
+    // A* lower bound; 0 when some node has no coordinates and A* falls back to plain Dijkstra
+    private final double[] xs;
+    private final double[] ys;
+    private final double heuristicRate;
+
+    private final Map<Long, Integer> indexById;
+    private final Map<String, int[]> nodesByName;
+    private final String[] distinctNames;
+
+    // Scratch arrays are pooled rather than thread-local so they also work with short-lived threads
+    private final ConcurrentLinkedQueue<SearchWorkspace> workspaces = new ConcurrentLinkedQueue<>();
+
+    private CompactGraph(Builder b, int[] offsets, int[] targets, int[] weights, int costPerStation, int costPerTransfer,
+                         double[] xs, double[] ys, double heuristicRate) {
+        this.nodeCount = b.size;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.keys = edgeKeys(offsets, targets, weights, b.lineIds);
+        this.costPerStation = costPerStation;
+        this.costPerTransfer = costPerTransfer;
+        this.nodeIds = Arrays.copyOf(b.nodeIds, b.size);
+        this.lineIds = Arrays.copyOf(b.lineIds, b.size);
+        this.stationIds = Arrays.copyOf(b.stationIds, b.size);
+        this.names = b.names.toArray(new String[0]);
+        this.codes = b.codes.toArray(new String[0]);
+        this.xs = xs;
+        this.ys = ys;
+        this.heuristicRate = heuristicRate;
+        this.indexById = b.indexById;
+        Map<String, int[]> byName = new HashMap<>();
+        b.nodesByName.forEach((name, list) -> byName.put(name, list.stream().mapToInt(Integer::intValue).toArray()));
+        this.nodesByName = byName;
+        this.distinctNames = byName.keySet().stream().sorted().toArray(String[]::new);
+    }
+
+    public static CompactGraph empty() {
+        return new Builder().build(0, 0);
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    public boolean isEmpty() {
+        return nodeCount == 0;
+    }
+
+    public int[] nodesByName(String name) {
+        int[] nodes = nodesByName.get(name);
+        return nodes != null ? nodes : NO_NODES;
+    }
+
+    /**
+     * Distinct station names in sorted order; transfer stations appear once.
+     */
+    public String[] stationNames() {
+        return distinctNames.clone();
+    }
+
+    public int stationCount() {
+        return distinctNames.length;
+    }
+
+    public int indexOf(long nodeId) {
+        Integer idx = indexById.get(nodeId);
+        return idx != null ? idx : -1;
+    }
+
+    public long nodeId(int node) {
+        return nodeIds[node];
+    }
+
+    public long lineId(int node) {
+        return lineIds[node];
+    }
+
+    public long stationId(int node) {
+        return stationIds[node];
+    }
+
+    public String name(int node) {
+        return names[node];
+    }
+
+    public String code(int node) {
+        return codes[node];
+    }
+
+    public boolean isTransfer(int u, int v) {
+        return lineIds[u] != lineIds[v];
+    }
+
+    public int costPerStation() {
+        return costPerStation;
+    }
+
+    public int costPerTransfer() {
+        return costPerTransfer;
+    }
+
+    /**
+     * Number of line changes along a path of node indices.
+     */
+    public int transfers(int[] path) {
+        int n = 0;
+        for (int i = 0; i + 1 < path.length; i++) {
+            if (isTransfer(path[i], path[i + 1])) n++;
+        }
+        return n;
+    }
+
+    public int edgeStart(int node) {
+        return offsets[node];
+    }
+
+    public int edgeEnd(int node) {
+        return offsets[node + 1];
+    }
+
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    public int weight(int edge) {
+        return weights[edge];
+    }
+
+    /**
+     * Multi-source Dijkstra: every start node begins at cost 0 and the search stops at the
+     * first settled target. Returns null when no target is reachable.
+     */
+    public PathResult findPath(int[] startNodes, int[] endNodes) {
+        if (startNodes.length == 0 || endNodes.length == 0) return null;
+        PathResult stay = stay(startNodes, endNodes);
+        if (stay != null) return stay;
+        SearchWorkspace ws = acquire();
+        try {
+            int settled = 0;
+            ws.begin();
+            IndexedMinHeap heap = ws.heap;
+            for (int t : endNodes) {
+                ws.markTarget(t);
+            }
+            for (int s : startNodes) {
+                ws.set(s, 0, -1);
+                heap.push(s, 0);
+            }
+
+            while (!heap.isEmpty()) {
+                long key = heap.peekKey();
+                int u = heap.poll();
+                settled++;
+
+                if (ws.isTarget(u)) {
+                    return buildResult(ws, u, key, settled);
+                }
+
+                for (int e = offsets[u], end = offsets[u + 1]; e < end; e++) {
+                    int v = targets[e];
+                    long newKey = key + keys[e];
+                    if (newKey < ws.dist(v)) {
+                        ws.set(v, newKey, u);
+                        heap.push(v, newKey);
+                    }
+                }
+            }
+            return null;
+        } finally {
+            release(ws);
+        }
+    }
+
+    public PathResult findPath(int[] startNodes, int[] endNodes, SearchAlgorithm algorithm) {
+        return switch (algorithm) {
+            case DIJKSTRA -> findPath(startNodes, endNodes);
+            case ASTAR -> findPathAStar(startNodes, endNodes);
+            case BIDIRECTIONAL -> findPathBidirectional(startNodes, endNodes);
+            // The hierarchy lives in the snapshot; a bare graph answers with plain Dijkstra
+            case CONTRACTION -> findPath(startNodes, endNodes);
+        };
+    }
+
+    public boolean hasCoordinates() {
+        return heuristicRate > 0;
+    }
+
+    /**
+     * A* with h(v) = rate * straight-line distance to the nearest end node. The bound is
+     * consistent (no edge costs less than rate times its length), so the first settled
+     * end node is optimal exactly as with Dijkstra.
+     */
+    public PathResult findPathAStar(int[] startNodes, int[] endNodes) {
+        if (!hasCoordinates()) return findPath(startNodes, endNodes);
+        if (startNodes.length == 0 || endNodes.length == 0) return null;
+        PathResult stay = stay(startNodes, endNodes);
+        if (stay != null) return stay;
+
+        // End nodes of one station usually share coordinates; keep the distinct points
+        double[] tx = new double[endNodes.length];
+        double[] ty = new double[endNodes.length];
+        int points = 0;
+        outer:
+        for (int t : endNodes) {
+            for (int i = 0; i < points; i++) {
+                if (tx[i] == xs[t] && ty[i] == ys[t]) continue outer;
+            }
+            tx[points] = xs[t];
+            ty[points] = ys[t];
+            points++;
+        }
+
+        SearchWorkspace ws = acquire();
+        try {
+            int settled = 0;
+            ws.begin();
+            IndexedMinHeap heap = ws.heap;
+            for (int t : endNodes) {
+                ws.markTarget(t);
+            }
+            for (int s : startNodes) {
+                ws.set(s, 0, -1);
+                heap.push(s, heuristic(s, tx, ty, points));
+            }
+
+            while (!heap.isEmpty()) {
+                int u = heap.poll();
+                long key = ws.dist(u);
+                settled++;
+
+                if (ws.isTarget(u)) {
+                    return buildResult(ws, u, key, settled);
+                }
+
+                for (int e = offsets[u], end = offsets[u + 1]; e < end; e++) {
+                    int v = targets[e];
+                    long newKey = key + keys[e];
+                    if (newKey < ws.dist(v)) {
+                        ws.set(v, newKey, u);
+                        heap.push(v, newKey + heuristic(v, tx, ty, points));
+                    }
+                }
+            }
+            return null;
+        } finally {
+            release(ws);
+        }
+    }
+
+    private long heuristic(int v, double[] tx, double[] ty, int points) {
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < points; i++) {
+            double dx = xs[v] - tx[i];
+            double dy = ys[v] - ty[i];
+            best = Math.min(best, dx * dx + dy * dy);
+        }
+        // Rounding down keeps the integer bound admissible and consistent; it only bounds the
+        // cost part of the key, the tie-breaking bits below it never exceed an edge's own
+        return (long) (heuristicRate * Math.sqrt(best)) << COST_SHIFT;
+    }
+
+    /**
+     * Bidirectional Dijkstra: a forward search from the start set and a backward search from
+     * the end set (edges are symmetric) advance alternately by smaller frontier key. The best
+     * meeting cost mu is tracked on every relaxation, and the search stops once the two
+     * frontier keys add up to mu, at which point no shorter meeting is possible.
+     */
+    public PathResult findPathBidirectional(int[] startNodes, int[] endNodes) {
+        if (startNodes.length == 0 || endNodes.length == 0) return null;
+        PathResult stay = stay(startNodes, endNodes);
+        if (stay != null) return stay;
+        SearchWorkspace fwd = acquire();
+        SearchWorkspace bwd = acquire();
+        try {
+            int settled = 0;
+            fwd.begin();
+            bwd.begin();
+            long mu = Long.MAX_VALUE;
+            int meet = -1;
+            for (int s : startNodes) {
+                fwd.set(s, 0, -1);
+                fwd.heap.push(s, 0);
+            }
+            for (int t : endNodes) {
+                bwd.set(t, 0, -1);
+                bwd.heap.push(t, 0);
+            }
+
+            while (!fwd.heap.isEmpty() && !bwd.heap.isEmpty()) {
+                if (fwd.heap.peekKey() + bwd.heap.peekKey() >= mu) break;
+                boolean forward = fwd.heap.peekKey() <= bwd.heap.peekKey();
+                SearchWorkspace ws = forward ? fwd : bwd;
+                SearchWorkspace other = forward ? bwd : fwd;
+
+                long key = ws.heap.peekKey();
+                int u = ws.heap.poll();
+                settled++;
+
+                for (int e = offsets[u], end = offsets[u + 1]; e < end; e++) {
+                    int v = targets[e];
+                    long newKey = key + keys[e];
+                    if (newKey < ws.dist(v)) {
+                        ws.set(v, newKey, u);
+                        ws.heap.push(v, newKey);
+                        if (other.reached(v) && newKey + other.dist(v) < mu) {
+                            mu = newKey + other.dist(v);
+                            meet = v;
+                        }
+                    }
+                }
+            }
+            if (meet < 0) return null;
+
+            int len = 0;
+            for (int v = meet; v >= 0; v = fwd.parent[v]) len++;
+            int tail = 0;
+            for (int v = bwd.parent[meet]; v >= 0; v = bwd.parent[v]) tail++;
+            int[] path = new int[len + tail];
+            for (int v = meet, i = len - 1; v >= 0; v = fwd.parent[v], i--) {
+                path[i] = v;
+            }
+            for (int v = bwd.parent[meet], i = len; v >= 0; v = bwd.parent[v], i++) {
+                path[i] = v;
+            }
+            return new PathResult(path.length - 1 - transfers(path), cost(mu), path, settled);
+        } finally {
+            release(bwd);
+            release(fwd);
+        }
+    }
+
+    /**
+     * Expands the whole graph from the start set without a target, e.g. to fill fare tables.
+     */
+    public ShortestPathTree shortestPathTree(int[] startNodes) {
+        return shortestPathTree(startNodes, null);
+    }
+
+    /**
+     * One-to-many Dijkstra: expands from the start set until every node in targetNodes is
+     * settled (or the graph is exhausted). Nodes that were never settled stay unreachable
+     * in the returned tree; a null target set expands the whole graph.
+     */
+    public ShortestPathTree shortestPathTree(int[] startNodes, int[] targetNodes) {
+        long[] settledKey = new long[nodeCount];
+        int[] parent = new int[nodeCount];
+        int[] segments = new int[nodeCount];
+        Arrays.fill(settledKey, Long.MAX_VALUE);
+        Arrays.fill(parent, -1);
+
+        SearchWorkspace ws = acquire();
+        try {
+            ws.begin();
+            IndexedMinHeap heap = ws.heap;
+            int remaining = Integer.MAX_VALUE;
+            if (targetNodes != null) {
+                remaining = 0;
+                for (int t : targetNodes) {
+                    if (!ws.isTarget(t)) {
+                        ws.markTarget(t);
+                        remaining++;
+                    }
+                }
+            }
+            for (int s : startNodes) {
+                ws.set(s, 0, -1);
+                heap.push(s, 0);
+            }
+
+            while (!heap.isEmpty() && remaining > 0) {
+                long key = heap.peekKey();
+                int u = heap.poll();
+                int p = ws.parent[u];
+                // Parents settle before children, so segments can be filled in settle order
+                settledKey[u] = key;
+                parent[u] = p;
+                segments[u] = p < 0 ? 0 : segments[p] + (isTransfer(p, u) ? 0 : 1);
+                if (ws.isTarget(u)) remaining--;
+
+                for (int e = offsets[u], end = offsets[u + 1]; e < end; e++) {
+                    int v = targets[e];
+                    long newKey = key + keys[e];
+                    if (newKey < ws.dist(v)) {
+                        ws.set(v, newKey, u);
+                        heap.push(v, newKey);
+                    }
+                }
+            }
+        } finally {
+            release(ws);
+        }
+        return new ShortestPathTree(this, settledKey, parent, segments);
+    }
+
+    // A node in both sets is a zero-cost trip. Several can tie at cost 0 (platforms of the same
+    // station), so every search answers with the first in end order, as ShortestPathTree.best does
+    static PathResult stay(int[] startNodes, int[] endNodes) {
+        for (int t : endNodes) {
+            for (int s : startNodes) {
+                if (s == t) return new PathResult(0, 0, new int[]{t});
+            }
+        }
+        return null;
+    }
+
+    private PathResult buildResult(SearchWorkspace ws, int last, long key, int settled) {
+        int len = 0;
+        for (int v = last; v >= 0; v = ws.parent[v]) len++;
+
+        int[] path = new int[len];
+        for (int v = last, i = len - 1; v >= 0; v = ws.parent[v], i--) {
+            path[i] = v;
+        }
+
+        int stationCount = 0;
+        for (int i = 0; i < len - 1; i++) {
+            if (!isTransfer(path[i], path[i + 1])) stationCount++;
+        }
+        return new PathResult(stationCount, cost(key), path, settled);
+    }
+
+    // Search key of an edge, see the class comment
+    long key(int edge) {
+        return keys[edge];
+    }
+
+    static int cost(long key) {
+        return (int) (key >>> COST_SHIFT);
+    }
+
+    // Cost in bits 40..62 (route costs below 2^23), segment count in bits 28..39 (up to 4095
+    // stations), tie value below 2^16 per edge in bits 0..27 (up to 4096 edges); the tie is
+    // symmetric so both search directions agree
+    private static long[] edgeKeys(int[] offsets, int[] targets, int[] weights, long[] lineIds) {
+        long[] keys = new long[targets.length];
+        for (int u = 0; u + 1 < offsets.length; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                int lo = Math.min(u, v);
+                int hi = Math.max(u, v);
+                int tie = (int) ((lo * 0x9E3779B1L + hi * 0x85EBCA6BL) >>> 11) & 0xFFFF;
+                long ride = lineIds[u] != lineIds[v] ? 0 : 1L << 28;
+                keys[e] = ((long) weights[e] << COST_SHIFT) | ride | tie;
+            }
+        }
+        return keys;
+    }
+
+    SearchWorkspace acquire() {
+        SearchWorkspace ws = workspaces.poll();
+        return ws != null ? ws : new SearchWorkspace(nodeCount);
+    }
+
+    void release(SearchWorkspace ws) {
+        workspaces.offer(ws);
+    }
+
+    /**
+     * Collects nodes and undirected edges, then freezes them into CSR arrays.
+     */
+    public static final class Builder {
+        private int size;
+        private long[] nodeIds = new long[64];
+        private long[] lineIds = new long[64];
+        private long[] stationIds = new long[64];
+        private double[] lngs = new double[64];
+        private double[] lats = new double[64];
+        private final List<String> names = new ArrayList<>();
+        private final List<String> codes = new ArrayList<>();
+        private final Map<Long, Integer> indexById = new HashMap<>();
+        private final Map<String, List<Integer>> nodesByName = new HashMap<>();
+        private final List<Set<Integer>> adjacency = new ArrayList<>();
+
+        public int addNode(long nodeId, long lineId, long stationId, String name, String code) {
+            Integer existing = indexById.get(nodeId);
+            if (existing != null) return existing;
+
+            if (size == nodeIds.length) {
+                int cap = size * 2;
+                nodeIds = Arrays.copyOf(nodeIds, cap);
+                lineIds = Arrays.copyOf(lineIds, cap);
+                stationIds = Arrays.copyOf(stationIds, cap);
+                lngs = Arrays.copyOf(lngs, cap);
+                lats = Arrays.copyOf(lats, cap);
+            }
+            int idx = size++;
+            nodeIds[idx] = nodeId;
+            lineIds[idx] = lineId;
+            stationIds[idx] = stationId;
+            lngs[idx] = Double.NaN;
+            lats[idx] = Double.NaN;
+            names.add(name);
+            codes.add(code);
+            indexById.put(nodeId, idx);
+            nodesByName.computeIfAbsent(name, k -> new ArrayList<>()).add(idx);
+            adjacency.add(new HashSet<>());
+            return idx;
+        }
+
+        public int indexOf(long nodeId) {
+            Integer idx = indexById.get(nodeId);
+            return idx != null ? idx : -1;
+        }
+
+        public long lineId(int node) {
+            return lineIds[node];
+        }
+
+        public void coordinates(int node, Double lng, Double lat) {
+            lngs[node] = lng != null ? lng : Double.NaN;
+            lats[node] = lat != null ? lat : Double.NaN;
+        }
+
+        public void connect(int u, int v) {
+            if (u == v) return;
+            adjacency.get(u).add(v);
+            adjacency.get(v).add(u);
+        }
+
+        public Map<String, List<Integer>> nodesByName() {
+            return Collections.unmodifiableMap(nodesByName);
+        }
+
+        public CompactGraph build(int costPerStation, int costPerTransfer) {
+            int[] offsets = new int[size + 1];
+            for (int u = 0; u < size; u++) {
+                offsets[u + 1] = offsets[u] + adjacency.get(u).size();
+            }
+            int[] targets = new int[offsets[size]];
+            int[] weights = new int[offsets[size]];
+            for (int u = 0; u < size; u++) {
+                int[] sorted = adjacency.get(u).stream().mapToInt(Integer::intValue).sorted().toArray();
+                int e = offsets[u];
+                for (int v : sorted) {
+                    targets[e] = v;
+                    weights[e] = lineIds[u] != lineIds[v] ? costPerTransfer : costPerStation;
+                    e++;
+                }
+            }
+            // Equirectangular projection around the mean latitude; fine at city scale, and the
+            // heuristic only relies on it being a metric that also measures the edges
+            double[] xs = new double[size];
+            double[] ys = new double[size];
+            boolean complete = size > 0;
+            double latSum = 0;
+            for (int u = 0; u < size; u++) {
+                if (Double.isNaN(lngs[u]) || Double.isNaN(lats[u])) complete = false;
+                latSum += lats[u];
+            }
+            double rate = 0;
+            if (complete) {
+                double kx = 111.320 * Math.cos(Math.toRadians(latSum / size));
+                for (int u = 0; u < size; u++) {
+                    xs[u] = lngs[u] * kx;
+                    ys[u] = lats[u] * 110.574;
+                }
+                rate = Double.MAX_VALUE;
+                for (int u = 0; u < size; u++) {
+                    for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                        int v = targets[e];
+                        double km = Math.hypot(xs[u] - xs[v], ys[u] - ys[v]);
+                        if (km > 0) rate = Math.min(rate, weights[e] / km);
+                    }
+                }
+                if (rate == Double.MAX_VALUE) rate = 0;
+            }
+            return new CompactGraph(this, offsets, targets, weights, costPerStation, costPerTransfer, xs, ys, rate);
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package com.subway.ticket.service.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Contraction hierarchy over a {@link CompactGraph}. Preprocessing removes nodes one by one in
+ * order of importance and adds a shortcut arc between two neighbours whenever the route through
+ * the removed node is the only shortest connection between them. A query then runs two small
+ * Dijkstra searches, from the start set and from the end set, that only ever move to
+ * more important nodes; they meet at the top of the route, and shortcuts are unpacked back
+ * into line-station nodes.
+ * <p>
+ * Shortcut weights are sums of the graph's packed search keys, so queries return the same
+ * route as {@link CompactGraph#findPath(int[], int[])} for every pair.
+ */
+public final class ContractionHierarchy {
+
+    // Witness searches give up after this many settled nodes and keep the shortcut instead;
+    // that only costs an unnecessary arc, never a wrong route
+    private static final int WITNESS_SETTLE_LIMIT = 64;
+    // Priority estimates only need the shortcut count roughly, so they search less
+    private static final int ESTIMATE_SETTLE_LIMIT = 16;
+
+    private final CompactGraph graph;
+    private final int[] rank;
+
+    // Arcs: original edges first (one per undirected edge), then shortcuts. A shortcut joins
+    // arcFrom and arcTo through the middle node shared by its two child arcs.
+    private final int[] arcFrom;
+    private final int[] arcTo;
+    private final int[] arcChild1;
+    private final int[] arcChild2;
+    private final int originalArcs;
+
+    // Upward graph in CSR form: arcs of node u that lead to a higher-ranked node
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    private final int[] upArcs;
+    private final long[] upKeys;
+
+    private final long buildMillis;
+    private final ConcurrentLinkedQueue<SearchWorkspace> workspaces = new ConcurrentLinkedQueue<>();
+
+    private ContractionHierarchy(CompactGraph graph, int[] rank, Arcs arcs, long buildMillis) {
+        this.graph = graph;
+        this.rank = rank;
+        this.arcFrom = Arrays.copyOf(arcs.from, arcs.size);
+        this.arcTo = Arrays.copyOf(arcs.to, arcs.size);
+        this.arcChild1 = Arrays.copyOf(arcs.child1, arcs.size);
+        this.arcChild2 = Arrays.copyOf(arcs.child2, arcs.size);
+        this.originalArcs = arcs.originals;
+        this.buildMillis = buildMillis;
+
+        int n = graph.nodeCount();
+        int[] degree = new int[n + 1];
+        for (int a = 0; a < arcs.size; a++) {
+            if (arcs.dead[a]) continue;
+            degree[lower(arcs.from[a], arcs.to[a])]++;
+        }
+        this.upOffsets = new int[n + 1];
+        for (int u = 0; u < n; u++) upOffsets[u + 1] = upOffsets[u] + degree[u];
+        int m = upOffsets[n];
+        this.upTargets = new int[m];
+        this.upArcs = new int[m];
+        this.upKeys = new long[m];
+        int[] fill = Arrays.copyOf(upOffsets, n);
+        for (int a = 0; a < arcs.size; a++) {
+            if (arcs.dead[a]) continue;
+            int u = lower(arcs.from[a], arcs.to[a]);
+            int i = fill[u]++;
+            upTargets[i] = u == arcs.from[a] ? arcs.to[a] : arcs.from[a];
+            upArcs[i] = a;
+            upKeys[i] = arcs.key[a];
+        }
+    }
+
+    private int lower(int a, int b) {
+        return rank[a] < rank[b] ? a : b;
+    }
+
+    /**
+     * Contracts every node of the graph, least important first. Importance is the classic
+     * edge difference (shortcuts added minus arcs removed) plus the number of already
+     * contracted neighbours, which spreads contraction evenly over the network; priorities
+     * are refreshed lazily when a node reaches the top of the queue.
+     */
+    public static ContractionHierarchy build(CompactGraph g) {
+        long start = System.nanoTime();
+        int n = g.nodeCount();
+        Contractor c = new Contractor(g);
+
+        IndexedMinHeap queue = new IndexedMinHeap(Math.max(n, 1));
+        for (int v = 0; v < n; v++) {
+            queue.push(v, c.priority(v));
+        }
+        int[] rank = new int[n];
+        int next = 0;
+        while (!queue.isEmpty()) {
+            int v = queue.poll();
+            long priority = c.priority(v);
+            if (!queue.isEmpty() && priority > queue.peekKey()) {
+                queue.push(v, priority);
+                continue;
+            }
+            c.contract(v);
+            rank[v] = next++;
+        }
+        return new ContractionHierarchy(g, rank, c.arcs, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public CompactGraph graph() {
+        return graph;
+    }
+
+    public long buildMillis() {
+        return buildMillis;
+    }
+
+    public int shortcutCount() {
+        return arcFrom.length - originalArcs;
+    }
+
+    public int upwardArcCount() {
+        return upTargets.length;
+    }
+
+    /**
+     * Heap bytes of the hierarchy itself, excluding the underlying graph.
+     */
+    public long memoryBytes() {
+        long arcs = (long) arcFrom.length * 4 * Integer.BYTES;
+        long up = (long) upTargets.length * (2 * Integer.BYTES + Long.BYTES) + (long) upOffsets.length * Integer.BYTES;
+        return arcs + up + (long) rank.length * Integer.BYTES;
+    }
+
+    /**
+     * Route between the cheapest start and end node. Both searches only climb in rank; every
+     * shortest route has a single highest node, where the two halves meet. A side stops once
+     * its smallest queued key can no longer beat the best meeting found; nodes whose label is
+     * beaten through a higher neighbour are stalled instead of expanded.
+     */
+    public PathResult findPath(int[] startNodes, int[] endNodes) {
+        if (startNodes.length == 0 || endNodes.length == 0) return null;
+        PathResult stay = CompactGraph.stay(startNodes, endNodes);
+        if (stay != null) return stay;
+        SearchWorkspace fwd = acquire();
+        SearchWorkspace bwd = acquire();
+        try {
+            int settled = 0;
+            fwd.begin();
+            bwd.begin();
+            for (int s : startNodes) {
+                fwd.set(s, 0, -1);
+                fwd.heap.push(s, 0);
+            }
+            for (int t : endNodes) {
+                bwd.set(t, 0, -1);
+                bwd.heap.push(t, 0);
+            }
+
+            long mu = Long.MAX_VALUE;
+            int meet = -1;
+            while (true) {
+                boolean f = !fwd.heap.isEmpty() && fwd.heap.peekKey() < mu;
+                boolean b = !bwd.heap.isEmpty() && bwd.heap.peekKey() < mu;
+                if (!f && !b) break;
+                boolean forward = f && (!b || fwd.heap.peekKey() <= bwd.heap.peekKey());
+                SearchWorkspace ws = forward ? fwd : bwd;
+                SearchWorkspace other = forward ? bwd : fwd;
+
+                long key = ws.heap.peekKey();
+                int u = ws.heap.poll();
+                settled++;
+                if (other.reached(u) && key + other.dist(u) < mu) {
+                    mu = key + other.dist(u);
+                    meet = u;
+                }
+
+                if (stalled(ws, u, key)) continue;
+                for (int i = upOffsets[u], end = upOffsets[u + 1]; i < end; i++) {
+                    int v = upTargets[i];
+                    long newKey = key + upKeys[i];
+                    if (newKey < ws.dist(v)) {
+                        // Parents hold arc ids here so shortcuts can be unpacked afterwards
+                        ws.set(v, newKey, upArcs[i]);
+                        ws.heap.push(v, newKey);
+                    }
+                }
+            }
+            if (meet < 0) return null;
+
+            int[] path = unpack(fwd, bwd, meet);
+            return new PathResult(path.length - 1 - graph.transfers(path), CompactGraph.cost(mu), path, settled);
+        } finally {
+            release(bwd);
+            release(fwd);
+        }
+    }
+
+    // Stall-on-demand: a higher neighbour already reached more cheaply means the label of u
+    // is not on a shortest route, so there is no point in relaxing its arcs
+    private boolean stalled(SearchWorkspace ws, int u, long key) {
+        for (int i = upOffsets[u], end = upOffsets[u + 1]; i < end; i++) {
+            long d = ws.dist(upTargets[i]);
+            if (d != Long.MAX_VALUE && d + upKeys[i] < key) return true;
+        }
+        return false;
+    }
+
+    private int[] unpack(SearchWorkspace fwd, SearchWorkspace bwd, int meet) {
+        NodeList path = new NodeList();
+
+        // Forward half: collect the arcs from the meeting node back to the start, then expand
+        // them start-first
+        NodeList chain = new NodeList();
+        int v = meet;
+        for (int a = fwd.parent[v]; a >= 0; a = fwd.parent[v]) {
+            chain.add(a);
+            v = other(a, v);
+        }
+        path.add(v);
+        for (int i = chain.size - 1; i >= 0; i--) {
+            int a = chain.items[i];
+            expand(a, v, path);
+            v = other(a, v);
+        }
+
+        // Backward half: arcs already run from the meeting node towards the end
+        for (int a = bwd.parent[v]; a >= 0; a = bwd.parent[v]) {
+            expand(a, v, path);
+            v = other(a, v);
+        }
+        return Arrays.copyOf(path.items, path.size);
+    }
+
+    // Appends the nodes of arc a walked from node `from`, excluding `from` itself. Iterative so
+    // deeply nested shortcuts on large networks cannot overflow the call stack.
+    private void expand(int a, int from, NodeList out) {
+        NodeList stack = new NodeList();
+        stack.add(a);
+        stack.add(from);
+        while (stack.size > 0) {
+            int u = stack.items[--stack.size];
+            int arc = stack.items[--stack.size];
+            if (arcChild1[arc] < 0) {
+                out.add(other(arc, u));
+                continue;
+            }
+            // child1 joins arcFrom with the middle node, child2 the middle node with arcTo
+            int first = u == arcFrom[arc] ? arcChild1[arc] : arcChild2[arc];
+            int second = u == arcFrom[arc] ? arcChild2[arc] : arcChild1[arc];
+            int mid = other(first, u);
+            stack.add(second);
+            stack.add(mid);
+            stack.add(first);
+            stack.add(u);
+        }
+    }
+
+    private int other(int arc, int node) {
+        return arcFrom[arc] == node ? arcTo[arc] : arcFrom[arc];
+    }
+
+    private SearchWorkspace acquire() {
+        SearchWorkspace ws = workspaces.poll();
+        return ws != null ? ws : new SearchWorkspace(graph.nodeCount());
+    }
+
+    private void release(SearchWorkspace ws) {
+        workspaces.offer(ws);
+    }
+
+    /**
+     * Mutable state of one preprocessing run.
+     */
+    private static final class Contractor {
+        final Arcs arcs = new Arcs();
+        // Live arcs per node: arcs to contracted nodes and replaced arcs are unlinked, so
+        // witness searches only ever scan the remaining graph
+        final int[][] adj;
+        final int[] adjSize;
+        final int[] contractedNeighbours;
+        final SearchWorkspace witness;
+        final int[] targetMark;
+        final long[] viaKey;
+        int targetEpoch;
+
+        Contractor(CompactGraph g) {
+            int n = g.nodeCount();
+            adj = new int[n][];
+            adjSize = new int[n];
+            for (int u = 0; u < n; u++) {
+                adj[u] = new int[Math.max(4, g.edgeEnd(u) - g.edgeStart(u))];
+            }
+            contractedNeighbours = new int[n];
+            witness = new SearchWorkspace(Math.max(n, 1));
+            targetMark = new int[n];
+            viaKey = new long[n];
+            for (int u = 0; u < n; u++) {
+                for (int e = g.edgeStart(u), end = g.edgeEnd(u); e < end; e++) {
+                    int v = g.target(e);
+                    if (u < v) link(arcs.add(u, v, g.key(e), -1, -1));
+                }
+            }
+            arcs.originals = arcs.size;
+        }
+
+        long priority(int v) {
+            return (long) shortcuts(v, false) - adjSize[v] + contractedNeighbours[v];
+        }
+
+        void contract(int v) {
+            shortcuts(v, true);
+            for (int i = 0; i < adjSize[v]; i++) {
+                int a = adj[v][i];
+                int u = arcs.other(a, v);
+                contractedNeighbours[u]++;
+                unlink(u, a);
+            }
+        }
+
+        /**
+         * Counts (or adds) the shortcuts needed to remove v: for each live neighbour u, one
+         * witness search from u that avoids v decides which neighbours w still need u-v-w.
+         */
+        int shortcuts(int v, boolean add) {
+            int count = 0;
+            int[] around = adj[v];
+            int size = adjSize[v];
+            for (int i = 0; i < size; i++) {
+                int a1 = around[i];
+                int u = arcs.other(a1, v);
+
+                // Targets: every other live neighbour w, keyed by the cost through v
+                targetEpoch++;
+                long limit = 0;
+                int targets = 0;
+                for (int j = 0; j < size; j++) {
+                    int a2 = around[j];
+                    int w = arcs.other(a2, v);
+                    if (w == u) continue;
+                    long via = arcs.key[a1] + arcs.key[a2];
+                    if (targetMark[w] != targetEpoch || via < viaKey[w]) {
+                        if (targetMark[w] != targetEpoch) targets++;
+                        targetMark[w] = targetEpoch;
+                        viaKey[w] = via;
+                    }
+                    limit = Math.max(limit, via);
+                }
+                if (targets == 0) continue;
+
+                witnessSearch(u, v, limit, targets, add ? WITNESS_SETTLE_LIMIT : ESTIMATE_SETTLE_LIMIT);
+                for (int j = 0; j < size; j++) {
+                    int a2 = around[j];
+                    int w = arcs.other(a2, v);
+                    if (w == u) continue;
+                    long via = arcs.key[a1] + arcs.key[a2];
+                    if (via != viaKey[w] || witness.dist(w) <= via) continue;
+                    // Mark handled so parallel arcs to w do not add the same shortcut twice
+                    viaKey[w] = -1;
+                    // Each unordered pair is visited from both ends; count it once
+                    if (u > w) {
+                        count++;
+                        if (add) addShortcut(u, w, via, a1, a2);
+                    }
+                }
+            }
+            return count;
+        }
+
+        // Local Dijkstra from u over live nodes other than v, bounded by key and settle count
+        void witnessSearch(int u, int v, long limit, int targets, int maxSettled) {
+            SearchWorkspace ws = witness;
+            ws.begin();
+            ws.set(u, 0, -1);
+            ws.heap.push(u, 0);
+            int settled = 0;
+            while (!ws.heap.isEmpty() && settled < maxSettled) {
+                long key = ws.heap.peekKey();
+                if (key > limit) break;
+                int x = ws.heap.poll();
+                settled++;
+                if (targetMark[x] == targetEpoch && --targets == 0) break;
+                for (int i = 0; i < adjSize[x]; i++) {
+                    int a = adj[x][i];
+                    int y = arcs.other(a, x);
+                    if (y == v) continue;
+                    long nk = key + arcs.key[a];
+                    if (nk < ws.dist(y)) {
+                        ws.set(y, nk, x);
+                        ws.heap.push(y, nk);
+                    }
+                }
+            }
+        }
+
+        void addShortcut(int u, int w, long key, int a1, int a2) {
+            // Replace a more expensive direct arc instead of keeping both
+            for (int i = 0; i < adjSize[u]; i++) {
+                int a = adj[u][i];
+                if (arcs.other(a, u) == w) {
+                    if (arcs.key[a] <= key) return;
+                    arcs.dead[a] = true;
+                    unlink(u, a);
+                    unlink(w, a);
+                    i--;
+                }
+            }
+            // child1 must touch arcFrom (= u), child2 arcTo (= w)
+            boolean firstAtU = arcs.from[a1] == u || arcs.to[a1] == u;
+            link(arcs.add(u, w, key, firstAtU ? a1 : a2, firstAtU ? a2 : a1));
+        }
+
+        void link(int a) {
+            push(arcs.from[a], a);
+            push(arcs.to[a], a);
+        }
+
+        void unlink(int u, int a) {
+            for (int i = 0; i < adjSize[u]; i++) {
+                if (adj[u][i] == a) {
+                    adj[u][i] = adj[u][--adjSize[u]];
+                    return;
+                }
+            }
+        }
+
+        void push(int u, int a) {
+            if (adjSize[u] == adj[u].length) adj[u] = Arrays.copyOf(adj[u], adjSize[u] * 2);
+            adj[u][adjSize[u]++] = a;
+        }
+    }
+
+    private static final class Arcs {
+        int[] from = new int[1024];
+        int[] to = new int[1024];
+        long[] key = new long[1024];
+        int[] child1 = new int[1024];
+        int[] child2 = new int[1024];
+        boolean[] dead = new boolean[1024];
+        int size;
+        int originals;
+
+        int add(int u, int v, long k, int c1, int c2) {
+            if (size == from.length) {
+                int cap = size * 2;
+                from = Arrays.copyOf(from, cap);
+                to = Arrays.copyOf(to, cap);
+                key = Arrays.copyOf(key, cap);
+                child1 = Arrays.copyOf(child1, cap);
+                child2 = Arrays.copyOf(child2, cap);
+                dead = Arrays.copyOf(dead, cap);
+            }
+            from[size] = u;
+            to[size] = v;
+            key[size] = k;
+            child1[size] = c1;
+            child2[size] = c2;
+            return size++;
+        }
+
+        int other(int a, int node) {
+            return from[a] == node ? to[a] : from[a];
+        }
+    }
+
+    private static final class NodeList {
+        int[] items = new int[16];
+        int size;
+
+        void add(int v) {
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            items[size++] = v;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.subway.ticket.service.graph;
+
+/**
+ * Published after a new graph snapshot has been swapped in, so caches keyed on the
+ * network can drop entries built from older versions.
+ */
+public class GraphReloadedEvent {
+    private final GraphSnapshot snapshot;
+
+    public GraphReloadedEvent(GraphSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public GraphSnapshot getSnapshot() {
+        return snapshot;
+    }
+}
@@ -0,0 +1,133 @@
+package com.subway.ticket.service.graph;
+
+import com.subway.ticket.domain.Line;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Everything a quote needs from one network build: graph, station directory, line info
+ * and the optional all-pairs table and contraction hierarchy. A snapshot is never modified after it is published,
+ * so readers can hold on to it for a whole request without locking.
+ */
+public final class GraphSnapshot {
+
+    private final long version;
+    private final String fingerprint;
+    private final String networkTag;
+    private final Instant builtAt;
+    private final CompactGraph graph;
+    private final StationDirectory stations;
+    private final Map<Long, Line> lines;
+    private final AllPairsTable allPairs;
+    private final SearchAlgorithm search;
+    private final ContractionHierarchy contraction;
+
+    public GraphSnapshot(long version, String fingerprint, CompactGraph graph, StationDirectory stations,
+                         Map<Long, Line> lines, AllPairsTable allPairs, SearchAlgorithm search,
+                         ContractionHierarchy contraction) {
+        this.version = version;
+        this.fingerprint = fingerprint;
+        this.networkTag = tag(fingerprint);
+        this.builtAt = Instant.now();
+        this.graph = graph;
+        this.stations = stations;
+        this.lines = Collections.unmodifiableMap(lines);
+        this.allPairs = allPairs;
+        this.search = search;
+        this.contraction = contraction;
+    }
+
+    public static GraphSnapshot empty() {
+        return new GraphSnapshot(0, "", CompactGraph.empty(), StationDirectory.empty(), Collections.emptyMap(), null,
+                SearchAlgorithm.DIJKSTRA, null);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public String fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Short hash of {@link #fingerprint()}. Unlike {@link #version()}, which counts rebuilds in
+     * this process, it is the same for the same network across restarts and instances.
+     */
+    public String networkTag() {
+        return networkTag;
+    }
+
+    public Instant builtAt() {
+        return builtAt;
+    }
+
+    public CompactGraph graph() {
+        return graph;
+    }
+
+    public StationDirectory stations() {
+        return stations;
+    }
+
+    public Line line(long lineId) {
+        return lines.get(lineId);
+    }
+
+    public Map<Long, Line> lines() {
+        return lines;
+    }
+
+    public boolean hasAllPairs() {
+        return allPairs != null;
+    }
+
+    public SearchAlgorithm search() {
+        return search;
+    }
+
+    public ContractionHierarchy contraction() {
+        return contraction;
+    }
+
+    public boolean isEmpty() {
+        return graph.isEmpty();
+    }
+
+    /**
+     * Station-to-station route: table lookup when the all-pairs table was built, otherwise
+     * an on-demand search with the configured algorithm.
+     */
+    public PathResult findPath(String fromName, String toName) {
+        if (allPairs != null) {
+            return allPairs.lookup(fromName, toName);
+        }
+        return findPath(graph.nodesByName(fromName), graph.nodesByName(toName), search);
+    }
+
+    /**
+     * Node-set search with the given algorithm; CONTRACTION uses this snapshot's hierarchy
+     * and falls back to Dijkstra when none was built.
+     */
+    public PathResult findPath(int[] startNodes, int[] endNodes, SearchAlgorithm algorithm) {
+        if (algorithm == SearchAlgorithm.CONTRACTION && contraction != null) {
+            return contraction.findPath(startNodes, endNodes);
+        }
+        return graph.findPath(startNodes, endNodes, algorithm);
+    }
+
+    private static String tag(String fingerprint) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(fingerprint.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
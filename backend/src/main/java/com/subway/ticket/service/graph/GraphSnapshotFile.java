@@ -0,0 +1,285 @@
+package com.subway.ticket.service.graph;
+
+import com.subway.ticket.domain.Line;
+import com.subway.ticket.domain.LineStation;
+import com.subway.ticket.domain.Station;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary copy of the rows a graph snapshot is built from, so a new instance can publish its
+ * first snapshot without reading line / station / line_station through MySQL. The CSR arrays,
+ * all-pairs table and hierarchy are rebuilt from these rows on load; they depend on the graph
+ * settings of the reading instance and take milliseconds at city scale.
+ * <p>
+ * Layout (little endian): a 32 byte header {@code magic, format version, payload length,
+ * CRC32C of the payload, row counts}, then the payload as fixed-width columns
+ * (ids, foreign keys, flags, coordinates) followed by one string table that the string
+ * columns index into (-1 = null). Every column is a plain array, so the file (tens of KB)
+ * is read in one go and the columns are bulk-copied out with no per-field parsing.
+ */
+public final class GraphSnapshotFile {
+
+    // "SGSN"
+    private static final int MAGIC = 0x4E534753;
+    static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    private GraphSnapshotFile() {
+    }
+
+    /**
+     * Rows and the network fingerprint they were read under.
+     */
+    public record Contents(String fingerprint, List<Line> lines, List<Station> stations,
+                           List<LineStation> lineStations) {
+    }
+
+    /**
+     * Writes to a temporary file next to {@code path} and moves it into place, so readers
+     * never see a partial file.
+     */
+    public static void write(Path path, String fingerprint, List<Line> lines, List<Station> stations,
+                             List<LineStation> lineStations) throws IOException {
+        Strings strings = new Strings();
+        strings.index(fingerprint);
+        for (Line l : lines) {
+            strings.index(l.getName());
+            strings.index(l.getColor());
+            strings.index(l.getCode());
+        }
+        for (Station s : stations) {
+            strings.index(s.getName());
+            strings.index(s.getPinyin());
+            strings.index(s.getEnName());
+            strings.index(s.getCode());
+        }
+
+        int payloadBytes = 4
+                + lines.size() * (8 + 4 * 4)
+                + stations.size() * (8 + 8 + 4 * 4 + 8 + 8 + 4)
+                + lineStations.size() * (8 + 8 + 8 + 4)
+                + 4 + (strings.values.size() + 1) * 4 + strings.bytes;
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + payloadBytes).order(ByteOrder.LITTLE_ENDIAN);
+        buf.position(HEADER_BYTES);
+
+        buf.putInt(strings.index(fingerprint));
+        for (Line l : lines) buf.putLong(l.getId());
+        for (Line l : lines) buf.putInt(strings.index(l.getName()));
+        for (Line l : lines) buf.putInt(strings.index(l.getColor()));
+        for (Line l : lines) buf.putInt(strings.index(l.getCode()));
+        for (Line l : lines) buf.putInt(flag(l.getIsActive()));
+
+        for (Station s : stations) buf.putLong(s.getId());
+        for (Station s : stations) buf.putLong(s.getLineId() != null ? s.getLineId() : -1);
+        for (Station s : stations) buf.putInt(strings.index(s.getName()));
+        for (Station s : stations) buf.putInt(strings.index(s.getPinyin()));
+        for (Station s : stations) buf.putInt(strings.index(s.getEnName()));
+        for (Station s : stations) buf.putInt(strings.index(s.getCode()));
+        for (Station s : stations) buf.putDouble(s.getLng() != null ? s.getLng() : Double.NaN);
+        for (Station s : stations) buf.putDouble(s.getLat() != null ? s.getLat() : Double.NaN);
+        for (Station s : stations) buf.putInt(flag(s.getIsActive()));
+
+        for (LineStation ls : lineStations) buf.putLong(ls.getId());
+        for (LineStation ls : lineStations) buf.putLong(ls.getLineId());
+        for (LineStation ls : lineStations) buf.putLong(ls.getStationId());
+        for (LineStation ls : lineStations) buf.putInt(ls.getSeq());
+
+        buf.putInt(strings.values.size());
+        int offset = 0;
+        buf.putInt(offset);
+        List<byte[]> encoded = strings.encoded;
+        for (byte[] b : encoded) {
+            offset += b.length;
+            buf.putInt(offset);
+        }
+        for (byte[] b : encoded) buf.put(b);
+
+        CRC32C crc = new CRC32C();
+        crc.update(buf.array(), HEADER_BYTES, payloadBytes);
+        buf.position(0);
+        buf.putInt(MAGIC)
+                .putInt(FORMAT_VERSION)
+                .putInt(payloadBytes)
+                .putInt((int) crc.getValue())
+                .putInt(lines.size())
+                .putInt(stations.size())
+                .putInt(lineStations.size())
+                .putInt(0);
+
+        Path dir = path.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            buf.rewind();
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads and decodes a snapshot file; throws when it is missing, truncated, from another
+     * format version or fails its checksum.
+     */
+    public static Contents read(Path path) throws IOException {
+        // A heap copy, not a mapping: every column is copied out anyway, and a mapping would keep
+        // the file open until GC, which on Windows makes the next write's replace fail
+        byte[] bytes = Files.readAllBytes(path);
+        try {
+            long size = bytes.length;
+            if (size < HEADER_BYTES) throw new IOException("Graph snapshot file too short: " + size + " bytes");
+            ByteBuffer buf = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            if (buf.getInt() != MAGIC) throw new IOException("Not a graph snapshot file: " + path);
+            int version = buf.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Graph snapshot format " + version + ", expected " + FORMAT_VERSION);
+            }
+            int payloadBytes = buf.getInt();
+            int checksum = buf.getInt();
+            int lineCount = buf.getInt();
+            int stationCount = buf.getInt();
+            int lineStationCount = buf.getInt();
+            buf.getInt();
+            if (size != HEADER_BYTES + (long) payloadBytes) {
+                throw new IOException("Graph snapshot truncated: " + size + " bytes, header says " + (HEADER_BYTES + payloadBytes));
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buf.slice(HEADER_BYTES, payloadBytes));
+            if ((int) crc.getValue() != checksum) throw new IOException("Graph snapshot checksum mismatch: " + path);
+
+            ByteBuffer p = buf.slice(HEADER_BYTES, payloadBytes).order(ByteOrder.LITTLE_ENDIAN);
+            int fingerprintRef = p.getInt();
+            long[] lineIds = longs(p, lineCount);
+            int[] lineNames = ints(p, lineCount);
+            int[] lineColors = ints(p, lineCount);
+            int[] lineCodes = ints(p, lineCount);
+            int[] lineActive = ints(p, lineCount);
+
+            long[] stationIds = longs(p, stationCount);
+            long[] stationLines = longs(p, stationCount);
+            int[] stationNames = ints(p, stationCount);
+            int[] stationPinyin = ints(p, stationCount);
+            int[] stationEnNames = ints(p, stationCount);
+            int[] stationCodes = ints(p, stationCount);
+            double[] lngs = doubles(p, stationCount);
+            double[] lats = doubles(p, stationCount);
+            int[] stationActive = ints(p, stationCount);
+
+            long[] lsIds = longs(p, lineStationCount);
+            long[] lsLines = longs(p, lineStationCount);
+            long[] lsStations = longs(p, lineStationCount);
+            int[] lsSeqs = ints(p, lineStationCount);
+
+            String[] strings = new String[p.getInt()];
+            int[] offsets = ints(p, strings.length + 1);
+            int base = p.position();
+            for (int i = 0; i < strings.length; i++) {
+                byte[] b = new byte[offsets[i + 1] - offsets[i]];
+                p.get(base + offsets[i], b);
+                strings[i] = new String(b, StandardCharsets.UTF_8);
+            }
+
+            List<Line> lines = new ArrayList<>(lineCount);
+            for (int i = 0; i < lineCount; i++) {
+                Line l = new Line();
+                l.setId(lineIds[i]);
+                l.setName(string(strings, lineNames[i]));
+                l.setColor(string(strings, lineColors[i]));
+                l.setCode(string(strings, lineCodes[i]));
+                l.setIsActive(lineActive[i]);
+                lines.add(l);
+            }
+            List<Station> stations = new ArrayList<>(stationCount);
+            for (int i = 0; i < stationCount; i++) {
+                Station s = new Station();
+                s.setId(stationIds[i]);
+                s.setLineId(stationLines[i] >= 0 ? stationLines[i] : null);
+                s.setName(string(strings, stationNames[i]));
+                s.setPinyin(string(strings, stationPinyin[i]));
+                s.setEnName(string(strings, stationEnNames[i]));
+                s.setCode(string(strings, stationCodes[i]));
+                s.setLng(Double.isNaN(lngs[i]) ? null : lngs[i]);
+                s.setLat(Double.isNaN(lats[i]) ? null : lats[i]);
+                s.setIsActive(stationActive[i]);
+                stations.add(s);
+            }
+            List<LineStation> lineStations = new ArrayList<>(lineStationCount);
+            for (int i = 0; i < lineStationCount; i++) {
+                LineStation ls = new LineStation();
+                ls.setId(lsIds[i]);
+                ls.setLineId(lsLines[i]);
+                ls.setStationId(lsStations[i]);
+                ls.setSeq(lsSeqs[i]);
+                lineStations.add(ls);
+            }
+            return new Contents(string(strings, fingerprintRef), lines, stations, lineStations);
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new IOException("Graph snapshot file is malformed: " + path, e);
+        }
+    }
+
+    private static int flag(Integer active) {
+        return active != null ? active : 1;
+    }
+
+    private static String string(String[] strings, int ref) {
+        return ref >= 0 ? strings[ref] : null;
+    }
+
+    private static long[] longs(ByteBuffer p, int n) {
+        long[] out = new long[n];
+        p.asLongBuffer().get(out);
+        p.position(p.position() + n * 8);
+        return out;
+    }
+
+    private static int[] ints(ByteBuffer p, int n) {
+        int[] out = new int[n];
+        p.asIntBuffer().get(out);
+        p.position(p.position() + n * 4);
+        return out;
+    }
+
+    private static double[] doubles(ByteBuffer p, int n) {
+        double[] out = new double[n];
+        p.asDoubleBuffer().get(out);
+        p.position(p.position() + n * 8);
+        return out;
+    }
+
+    // Distinct strings in first-use order
+    private static final class Strings {
+        final Map<String, Integer> ids = new HashMap<>();
+        final List<String> values = new ArrayList<>();
+        final List<byte[]> encoded = new ArrayList<>();
+        int bytes;
+
+        int index(String s) {
+            if (s == null) return -1;
+            Integer id = ids.get(s);
+            if (id != null) return id;
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            ids.put(s, values.size());
+            values.add(s);
+            encoded.add(b);
+            bytes += b.length;
+            return values.size() - 1;
+        }
+    }
+}
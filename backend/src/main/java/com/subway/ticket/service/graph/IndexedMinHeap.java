@@ -0,0 +1,117 @@
+package com.subway.ticket.service.graph;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap over dense node indices with decrease-key.
+ * Keys live in the heap itself so the search does not need a separate dist lookup per sift step.
+ */
+public final class IndexedMinHeap {
+
+    private final int[] nodes;
+    private final long[] keys;
+    // node -> position in heap, -1 when absent
+    private final int[] pos;
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        this.nodes = new int[capacity];
+        this.keys = new long[capacity];
+        this.pos = new int[capacity];
+        Arrays.fill(pos, -1);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int node) {
+        return pos[node] >= 0;
+    }
+
+    public long peekKey() {
+        return keys[0];
+    }
+
+    /**
+     * Inserts the node, or lowers its key if it is already queued with a larger one.
+     */
+    public void push(int node, long key) {
+        int i = pos[node];
+        if (i < 0) {
+            i = size++;
+            nodes[i] = node;
+            keys[i] = key;
+            pos[node] = i;
+            siftUp(i);
+        } else if (key < keys[i]) {
+            keys[i] = key;
+            siftUp(i);
+        }
+    }
+
+    /**
+     * Removes and returns the node with the smallest key.
+     */
+    public int poll() {
+        int top = nodes[0];
+        pos[top] = -1;
+        size--;
+        if (size > 0) {
+            nodes[0] = nodes[size];
+            keys[0] = keys[size];
+            pos[nodes[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Empties the heap in O(size) so it can be reused by the next search.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            pos[nodes[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        int node = nodes[i];
+        long key = keys[i];
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (keys[p] <= key) break;
+            nodes[i] = nodes[p];
+            keys[i] = keys[p];
+            pos[nodes[i]] = i;
+            i = p;
+        }
+        nodes[i] = node;
+        keys[i] = key;
+        pos[node] = i;
+    }
+
+    private void siftDown(int i) {
+        int node = nodes[i];
+        long key = keys[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int c = 2 * i + 1;
+            int r = c + 1;
+            if (r < size && keys[r] < keys[c]) c = r;
+            if (key <= keys[c]) break;
+            nodes[i] = nodes[c];
+            keys[i] = keys[c];
+            pos[nodes[i]] = i;
+            i = c;
+        }
+        nodes[i] = node;
+        keys[i] = key;
+        pos[node] = i;
+    }
+}
@@ -0,0 +1,140 @@
+package com.subway.ticket.service.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Round-based (RAPTOR-style) label-setting search for routes that are Pareto-optimal in
+ * (transfers, riding segments). Round k only holds labels that used exactly k line changes:
+ * each round relaxes same-line edges from the nodes marked in that round, then carries the
+ * improved nodes across transfer edges into round k + 1. A label is kept only when it beats
+ * every earlier round at that node and the best arrival found so far, so each round touches
+ * just the part of the network that can still improve the answer.
+ * <p>
+ * One pass yields the whole front, from the fewest-transfer route to the fewest-station one;
+ * any objective that only grows with transfers and stations (time, the configured weights)
+ * is minimised by one of these routes.
+ */
+public final class ParetoSearch {
+
+    private static final int INF = Integer.MAX_VALUE;
+
+    private ParetoSearch() {
+    }
+
+    /**
+     * Pareto-optimal routes ordered by increasing transfers (and so decreasing segments).
+     * Empty when no end node is reachable within maxTransfers line changes.
+     */
+    public static List<PathResult> search(CompactGraph g, int[] startNodes, int[] endNodes, int maxTransfers) {
+        List<PathResult> front = new ArrayList<>();
+        if (startNodes.length == 0 || endNodes.length == 0) return front;
+
+        int n = g.nodeCount();
+        int rounds = maxTransfers + 1;
+        int[] label = new int[rounds * n];
+        int[] parent = new int[rounds * n];
+        int[] best = new int[n];
+        Arrays.fill(label, INF);
+        Arrays.fill(best, INF);
+
+        SearchWorkspace ws = g.acquire();
+        try {
+            ws.begin();
+            IndexedMinHeap heap = ws.heap;
+            for (int t : endNodes) ws.markTarget(t);
+
+            int[] marked = new int[n];
+            int markedCount = 0;
+            int[] improved = new int[n];
+            for (int s : startNodes) {
+                if (label[s] == INF) marked[markedCount++] = s;
+                label[s] = 0;
+                parent[s] = -1;
+            }
+
+            int bestArrival = INF;
+            for (int k = 0; k < rounds && markedCount > 0; k++) {
+                int base = k * n;
+
+                // Ride along lines from everything reached with k transfers
+                heap.clear();
+                for (int i = 0; i < markedCount; i++) {
+                    int v = marked[i];
+                    heap.push(v, label[base + v]);
+                }
+                int improvedCount = 0;
+                int arrival = INF;
+                int arrivalNode = -1;
+                while (!heap.isEmpty()) {
+                    int d = (int) heap.peekKey();
+                    int u = heap.poll();
+                    if (d >= bestArrival) break;
+                    best[u] = d;
+                    improved[improvedCount++] = u;
+                    if (ws.isTarget(u) && d < arrival) {
+                        arrival = d;
+                        arrivalNode = u;
+                    }
+                    int nd = d + 1;
+                    for (int e = g.edgeStart(u), end = g.edgeEnd(u); e < end; e++) {
+                        int v = g.target(e);
+                        if (g.isTransfer(u, v)) continue;
+                        if (nd < label[base + v] && nd < best[v] && nd < bestArrival) {
+                            label[base + v] = nd;
+                            parent[base + v] = u;
+                            heap.push(v, nd);
+                        }
+                    }
+                }
+
+                if (arrivalNode >= 0) {
+                    bestArrival = arrival;
+                    front.add(result(g, parent, n, k, arrivalNode, arrival));
+                }
+
+                // Change lines: improved nodes seed round k + 1 with the same segment count
+                markedCount = 0;
+                if (k + 1 == rounds) break;
+                int next = base + n;
+                for (int i = 0; i < improvedCount; i++) {
+                    int u = improved[i];
+                    int d = label[base + u];
+                    if (d >= bestArrival) continue;
+                    for (int e = g.edgeStart(u), end = g.edgeEnd(u); e < end; e++) {
+                        int v = g.target(e);
+                        if (!g.isTransfer(u, v)) continue;
+                        if (d < best[v] && d < label[next + v]) {
+                            if (label[next + v] == INF) marked[markedCount++] = v;
+                            label[next + v] = d;
+                            parent[next + v] = u;
+                        }
+                    }
+                }
+            }
+        } finally {
+            g.release(ws);
+        }
+        return front;
+    }
+
+    private static PathResult result(CompactGraph g, int[] parent, int n, int round, int last, int segments) {
+        int len = 0;
+        for (int v = last, k = round; v >= 0; ) {
+            len++;
+            int p = parent[k * n + v];
+            if (p >= 0 && g.isTransfer(p, v)) k--;
+            v = p;
+        }
+        int[] path = new int[len];
+        for (int v = last, k = round, i = len - 1; v >= 0; i--) {
+            path[i] = v;
+            int p = parent[k * n + v];
+            if (p >= 0 && g.isTransfer(p, v)) k--;
+            v = p;
+        }
+        int cost = segments * g.costPerStation() + round * g.costPerTransfer();
+        return new PathResult(segments, cost, path);
+    }
+}
@@ -0,0 +1,24 @@
+package com.subway.ticket.service.graph;
+
+/**
+ * Result of a route search. {@code distance} counts riding segments (transfers excluded),
+ * {@code path} holds dense node indices of the {@link CompactGraph} that produced it and
+ * {@code settled} how many nodes the search had to settle (0 for table lookups).
+ */
+public final class PathResult {
+    public final int distance;
+    public final int cost;
+    public final int[] path;
+    public final int settled;
+
+    public PathResult(int distance, int cost, int[] path) {
+        this(distance, cost, path, 0);
+    }
+
+    public PathResult(int distance, int cost, int[] path, int settled) {
+        this.distance = distance;
+        this.cost = cost;
+        this.path = path;
+        this.settled = settled;
+    }
+}
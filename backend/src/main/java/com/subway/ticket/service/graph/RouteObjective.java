@@ -0,0 +1,29 @@
+package com.subway.ticket.service.graph;
+
+import java.util.Locale;
+
+/**
+ * What a rider wants to minimise when choosing between Pareto-optimal routes.
+ */
+public enum RouteObjective {
+    // Configured cost-per-station / cost-per-transfer weights, same as the single-route quote
+    BALANCED,
+    FEWEST_TRANSFERS,
+    FEWEST_STATIONS,
+    LEAST_TIME;
+
+    /**
+     * Accepts the enum name or the short API form ("balanced", "transfers", "stations", "time");
+     * returns null for anything else.
+     */
+    public static RouteObjective parse(String value) {
+        if (value == null || value.isBlank()) return BALANCED;
+        return switch (value.trim().toLowerCase(Locale.ROOT).replace('-', '_')) {
+            case "balanced", "default" -> BALANCED;
+            case "transfers", "fewest_transfers" -> FEWEST_TRANSFERS;
+            case "stations", "stops", "fewest_stations" -> FEWEST_STATIONS;
+            case "time", "least_time" -> LEAST_TIME;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.subway.ticket.service.graph;
+
+import java.util.Locale;
+
+/**
+ * Point-to-point search used when no all-pairs table is available. All of them return the
+ * same minimum-cost route; they differ in how many nodes they settle to find it.
+ */
+public enum SearchAlgorithm {
+    DIJKSTRA,
+    // Goal-directed with a straight-line distance lower bound from station coordinates
+    ASTAR,
+    // Forward from the origin and backward from the destination until the frontiers meet
+    BIDIRECTIONAL,
+    // Upward searches over a contraction hierarchy built when the graph is published
+    CONTRACTION;
+
+    public static SearchAlgorithm parse(String value) {
+        if (value == null || value.isBlank()) return DIJKSTRA;
+        return switch (value.trim().toLowerCase(Locale.ROOT).replace("-", "").replace("_", "")) {
+            case "dijkstra" -> DIJKSTRA;
+            case "astar", "a*" -> ASTAR;
+            case "bidirectional", "bidi" -> BIDIRECTIONAL;
+            case "ch", "contraction", "contractionhierarchy" -> CONTRACTION;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,56 @@
+package com.subway.ticket.service.graph;
+
+import java.util.Arrays;
+
+/**
+ * Reusable scratch arrays for one shortest-path search.
+ * Entries are only valid when stamp[v] == epoch, so starting a new search is O(1) instead of a full fill.
+ */
+public final class SearchWorkspace {
+
+    final long[] dist;
+    final int[] parent;
+    final int[] stamp;
+    final int[] targetStamp;
+    final IndexedMinHeap heap;
+    int epoch;
+
+    SearchWorkspace(int nodeCount) {
+        this.dist = new long[nodeCount];
+        this.parent = new int[nodeCount];
+        this.stamp = new int[nodeCount];
+        this.targetStamp = new int[nodeCount];
+        this.heap = new IndexedMinHeap(nodeCount);
+    }
+
+    void begin() {
+        heap.clear();
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            Arrays.fill(targetStamp, 0);
+            epoch = 1;
+        }
+    }
+
+    boolean reached(int v) {
+        return stamp[v] == epoch;
+    }
+
+    long dist(int v) {
+        return stamp[v] == epoch ? dist[v] : Long.MAX_VALUE;
+    }
+
+    void set(int v, long d, int p) {
+        stamp[v] = epoch;
+        dist[v] = d;
+        parent[v] = p;
+    }
+
+    void markTarget(int v) {
+        targetStamp[v] = epoch;
+    }
+
+    boolean isTarget(int v) {
+        return targetStamp[v] == epoch;
+    }
+}
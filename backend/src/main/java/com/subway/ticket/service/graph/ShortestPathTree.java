@@ -0,0 +1,73 @@
+package com.subway.ticket.service.graph;
+
+/**
+ * Full one-to-all expansion from a start set. Arrays are indexed by dense node index;
+ * unreachable nodes keep key Long.MAX_VALUE and parent -1. The full search key is kept per
+ * node, so picking among several end nodes breaks cost ties exactly as
+ * {@link CompactGraph#findPath(int[], int[])} does.
+ */
+public final class ShortestPathTree {
+
+    private final CompactGraph graph;
+    private final long[] key;
+    private final int[] parent;
+    private final int[] segments;
+
+    ShortestPathTree(CompactGraph graph, long[] key, int[] parent, int[] segments) {
+        this.graph = graph;
+        this.key = key;
+        this.parent = parent;
+        this.segments = segments;
+    }
+
+    public CompactGraph graph() {
+        return graph;
+    }
+
+    public boolean isReachable(int node) {
+        return key[node] != Long.MAX_VALUE;
+    }
+
+    public int cost(int node) {
+        return isReachable(node) ? CompactGraph.cost(key[node]) : Integer.MAX_VALUE;
+    }
+
+    public int segments(int node) {
+        return segments[node];
+    }
+
+    public int parent(int node) {
+        return parent[node];
+    }
+
+    int[] parents() {
+        return parent;
+    }
+
+    /**
+     * Reachable node of the given set (e.g. all platforms of one station) with the smallest
+     * search key, i.e. the one a targeted search would settle first, or -1.
+     */
+    public int best(int[] nodes) {
+        int best = -1;
+        for (int n : nodes) {
+            if (key[n] != Long.MAX_VALUE && (best < 0 || key[n] < key[best])) best = n;
+        }
+        return best;
+    }
+
+    public PathResult pathTo(int node) {
+        if (!isReachable(node)) return null;
+        return new PathResult(segments[node], cost(node), walk(parent, node));
+    }
+
+    static int[] walk(int[] parent, int last) {
+        int len = 0;
+        for (int v = last; v >= 0; v = parent[v]) len++;
+        int[] path = new int[len];
+        for (int v = last, i = len - 1; v >= 0; v = parent[v], i--) {
+            path[i] = v;
+        }
+        return path;
+    }
+}
@@ -0,0 +1,85 @@
+package com.subway.ticket.service.graph;
+
+import com.subway.ticket.domain.Station;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory station lookup by code, name and id plus the typeahead search index, built
+ * together with the graph so that quotes, orders and searches can resolve stations without
+ * touching MySQL.
+ */
+public final class StationDirectory {
+
+    private final Map<String, Station> byCode;
+    private final Map<String, List<Station>> byName;
+    private final Map<Long, Station> byId;
+    private final List<Station> all;
+    private final StationSearchIndex searchIndex;
+
+    private StationDirectory(Map<String, Station> byCode, Map<String, List<Station>> byName, Map<Long, Station> byId,
+                             List<Station> all) {
+        this.byCode = byCode;
+        this.byName = byName;
+        this.byId = byId;
+        this.all = all;
+        this.searchIndex = StationSearchIndex.of(all);
+    }
+
+    public static StationDirectory empty() {
+        return of(Collections.emptyList());
+    }
+
+    public static StationDirectory of(List<Station> stations) {
+        List<Station> sorted = new ArrayList<>(stations);
+        // Lowest id wins on duplicate codes, the same row "limit 1" used to return
+        sorted.sort(Comparator.comparing(Station::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        Map<String, Station> byCode = new HashMap<>();
+        Map<String, List<Station>> byName = new HashMap<>();
+        Map<Long, Station> byId = new HashMap<>();
+        for (Station s : sorted) {
+            if (s.getCode() != null) byCode.putIfAbsent(s.getCode(), s);
+            if (s.getName() != null) byName.computeIfAbsent(s.getName(), k -> new ArrayList<>()).add(s);
+            if (s.getId() != null) byId.put(s.getId(), s);
+        }
+        byName.replaceAll((k, v) -> List.copyOf(v));
+        return new StationDirectory(byCode, byName, byId, Collections.unmodifiableList(sorted));
+    }
+
+    public Station byCode(String code) {
+        return code != null ? byCode.get(code) : null;
+    }
+
+    public List<Station> byName(String name) {
+        return name != null ? byName.getOrDefault(name, Collections.emptyList()) : Collections.emptyList();
+    }
+
+    public Station byId(Long id) {
+        return id != null ? byId.get(id) : null;
+    }
+
+    /**
+     * Every station row (active or not) ordered by id.
+     */
+    public List<Station> all() {
+        return all;
+    }
+
+    /**
+     * Active stations matching a typeahead query (name, pinyin, initials or English name),
+     * best match first and one row per station name.
+     */
+    public List<Station> search(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+}
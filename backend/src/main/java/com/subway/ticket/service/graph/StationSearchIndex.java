@@ -0,0 +1,197 @@
+package com.subway.ticket.service.graph;
+
+import com.subway.ticket.domain.Station;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Typeahead index over active stations, one entry per distinct name (transfer stations have a
+ * row per line). Every entry is searchable by its Chinese name, full pinyin ("xianghu"), pinyin
+ * initials ("xh") and English name. Prefix matches come from one sorted key array via binary
+ * search; substring matches from character-bigram posting lists, so a query only ever looks
+ * at candidates that share its rarest bigram.
+ * <p>
+ * Ranking: exact name, name prefix, exact pinyin / initials / English, their prefixes, then
+ * substring matches (name before the others); shorter names first within a rank.
+ */
+public final class StationSearchIndex {
+
+    private static final int NAME = 0;
+    private static final int PINYIN = 1;
+    private static final int INITIALS = 2;
+    private static final int ENGLISH = 3;
+    private static final int[] NO_ENTRIES = new int[0];
+
+    private final Station[] entries;
+    // Normalised keys per entry, indexed by field; null when the field is unknown
+    private final String[][] keys;
+
+    // All keys of all entries, sorted, with the entry and field they belong to
+    private final String[] sortedKeys;
+    private final int[] sortedEntry;
+    private final byte[] sortedField;
+
+    // Single characters and bigrams of every key -> ascending entry indices
+    private final Map<String, int[]> grams;
+
+    private StationSearchIndex(List<Station> stations) {
+        this.entries = stations.toArray(new Station[0]);
+        this.keys = new String[entries.length][];
+        List<Object[]> all = new ArrayList<>();
+        Map<String, List<Integer>> postings = new HashMap<>();
+        for (int i = 0; i < entries.length; i++) {
+            Station s = entries[i];
+            String[] k = {
+                    normalize(s.getName()),
+                    normalize(s.getPinyin()),
+                    initials(s.getPinyin()),
+                    normalize(s.getEnName())};
+            keys[i] = k;
+            for (int f = 0; f < k.length; f++) {
+                if (k[f] == null || k[f].isEmpty()) continue;
+                all.add(new Object[]{k[f], i, f});
+                for (int c = 0; c < k[f].length(); c++) {
+                    addPosting(postings, k[f].substring(c, c + 1), i);
+                    if (c + 1 < k[f].length()) addPosting(postings, k[f].substring(c, c + 2), i);
+                }
+            }
+        }
+        all.sort((a, b) -> ((String) a[0]).compareTo((String) b[0]));
+        this.sortedKeys = new String[all.size()];
+        this.sortedEntry = new int[all.size()];
+        this.sortedField = new byte[all.size()];
+        for (int i = 0; i < all.size(); i++) {
+            sortedKeys[i] = (String) all.get(i)[0];
+            sortedEntry[i] = (Integer) all.get(i)[1];
+            sortedField[i] = (byte) (int) (Integer) all.get(i)[2];
+        }
+        this.grams = new HashMap<>();
+        postings.forEach((gram, list) -> grams.put(gram, list.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * Active stations of the directory, deduplicated by name keeping the lowest id.
+     */
+    public static StationSearchIndex of(List<Station> stationsById) {
+        Map<String, Station> byName = new LinkedHashMap<>();
+        for (Station s : stationsById) {
+            if (s.getName() == null || s.getIsActive() == null || s.getIsActive() != 1) continue;
+            byName.putIfAbsent(s.getName(), s);
+        }
+        return new StationSearchIndex(new ArrayList<>(byName.values()));
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * Ranked matches for a typeahead query; a blank query lists every entry in id order.
+     */
+    public List<Station> search(String query, int limit) {
+        String q = normalize(query);
+        if (q == null || q.isEmpty()) {
+            return Collections.unmodifiableList(Arrays.asList(entries).subList(0, Math.min(limit, entries.length)));
+        }
+
+        // entry -> best rank so far
+        Map<Integer, Integer> ranks = new HashMap<>();
+        int i = lowerBound(q);
+        for (; i < sortedKeys.length && sortedKeys[i].startsWith(q); i++) {
+            boolean exact = sortedKeys[i].length() == q.length();
+            int rank = sortedField[i] == NAME ? (exact ? 0 : 1) : (exact ? 2 : 3);
+            ranks.merge(sortedEntry[i], rank, Math::min);
+        }
+
+        for (int e : candidates(q)) {
+            if (ranks.containsKey(e)) continue;
+            String[] k = keys[e];
+            if (k[NAME] != null && k[NAME].contains(q)) {
+                ranks.put(e, 4);
+            } else if (contains(k[PINYIN], q) || contains(k[INITIALS], q) || contains(k[ENGLISH], q)) {
+                ranks.put(e, 5);
+            }
+        }
+
+        List<Map.Entry<Integer, Integer>> hits = new ArrayList<>(ranks.entrySet());
+        hits.sort((a, b) -> {
+            if (!a.getValue().equals(b.getValue())) return Integer.compare(a.getValue(), b.getValue());
+            int la = entries[a.getKey()].getName().length();
+            int lb = entries[b.getKey()].getName().length();
+            return la != lb ? Integer.compare(la, lb) : Integer.compare(a.getKey(), b.getKey());
+        });
+        List<Station> out = new ArrayList<>(Math.min(limit, hits.size()));
+        for (int h = 0; h < hits.size() && h < limit; h++) {
+            out.add(entries[hits.get(h).getKey()]);
+        }
+        return out;
+    }
+
+    // Entries sharing the query's rarest bigram (or its only character)
+    private int[] candidates(String q) {
+        if (q.length() == 1) return grams.getOrDefault(q, NO_ENTRIES);
+        int[] best = null;
+        for (int c = 0; c + 1 < q.length(); c++) {
+            int[] list = grams.get(q.substring(c, c + 2));
+            if (list == null) return NO_ENTRIES;
+            if (best == null || list.length < best.length) best = list;
+        }
+        return best;
+    }
+
+    private int lowerBound(String q) {
+        int lo = 0;
+        int hi = sortedKeys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sortedKeys[mid].compareTo(q) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static boolean contains(String key, String q) {
+        return key != null && key.contains(q);
+    }
+
+    private static void addPosting(Map<String, List<Integer>> postings, String gram, int entry) {
+        List<Integer> list = postings.computeIfAbsent(gram, k -> new ArrayList<>());
+        if (list.isEmpty() || list.getLast() != entry) list.add(entry);
+    }
+
+    // Lower case without spaces, apostrophes or hyphens, so "Binkang Road" matches "binkangr"
+    static String normalize(String s) {
+        if (s == null) return null;
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isWhitespace(c) || c == '\'' || c == '-' || c == '·') continue;
+            sb.append(c);
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    // First letter of every pinyin syllable: syllables start with a capital or after a space
+    static String initials(String pinyin) {
+        if (pinyin == null || pinyin.isBlank()) return null;
+        StringBuilder sb = new StringBuilder();
+        boolean boundary = true;
+        for (int i = 0; i < pinyin.length(); i++) {
+            char c = pinyin.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                boundary = true;
+                continue;
+            }
+            if (boundary || Character.isUpperCase(c)) sb.append(Character.toLowerCase(c));
+            boundary = false;
+        }
+        return sb.toString();
+    }
+}
@@ -1,63 +1,90 @@
 package com.subway.ticket.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.subway.ticket.domain.Order;
-import com.subway.ticket.domain.Station;
 import com.subway.ticket.domain.enums.OrderStatus;
 import com.subway.ticket.dto.CreateOrderReq;
 import com.subway.ticket.dto.FareQuote;
 import com.subway.ticket.exception.BusinessException;
 import com.subway.ticket.repository.OrderMapper;
-import com.subway.ticket.repository.StationMapper;
 import com.subway.ticket.service.FareService;
+import com.subway.ticket.service.GraphService;
 import com.subway.ticket.service.OrderService;
+import com.subway.ticket.service.QuoteTokenService;
+import com.subway.ticket.service.fare.FareSchedule;
+import com.subway.ticket.service.graph.StationDirectory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Service
 public class OrderServiceImpl implements OrderService {
 
     private final OrderMapper orderMapper;
-    private final StationMapper stationMapper;
+    private final GraphService graphService;
     private final FareService fareService;
+    private final QuoteTokenService quoteTokenService;
 
-    public OrderServiceImpl(OrderMapper orderMapper, StationMapper stationMapper, FareService fareService) {
+    public OrderServiceImpl(OrderMapper orderMapper, GraphService graphService, FareService fareService,
+                            QuoteTokenService quoteTokenService) {
         this.orderMapper = orderMapper;
-        this.stationMapper = stationMapper;
+        this.graphService = graphService;
         this.fareService = fareService;
+        this.quoteTokenService = quoteTokenService;
     }
 
     @Override
     @Transactional
     public Order createOrder(CreateOrderReq req) {
-        // 1. Calculate price using the same logic as quote
-        FareQuote quote = fareService.calculateFare(req.getFrom(), req.getTo());
-        
-        if (quote == null || quote.getPrice() == null) {
-             throw new BusinessException("无法计算票价，请检查站点是否连通");
+        boolean hasRoute = StringUtils.hasText(req.getFrom()) && StringUtils.hasText(req.getTo());
+
+        // 1. A current quote token already carries station ids and price: signature check and insert
+        if (StringUtils.hasText(req.getQuoteToken())) {
+            QuoteTokenService.Claims claims = quoteTokenService.verify(req.getQuoteToken());
+            FareQuote.Basis basis = claims.basis();
+            if (!quoteTokenService.isExpired(claims) && fareService.isCurrent(basis)) {
+                return insert(basis.fromStationId(), basis.toStationId(), FareSchedule.yuan(basis.cents()));
+            }
+            if (!hasRoute) {
+                throw new BusinessException("QUOTE_EXPIRED", "报价已过期，请重新查询票价");
+            }
+        }
+
+        if (!StringUtils.hasText(req.getFrom())) {
+            throw new BusinessException("VALIDATION_ERROR", "出发站不能为空");
         }
-        
-        Station sFrom = stationMapper.selectOne(new QueryWrapper<Station>().eq("code", req.getFrom()).last("limit 1"));
-        Station sTo = stationMapper.selectOne(new QueryWrapper<Station>().eq("code", req.getTo()).last("limit 1"));
-        
-        if (sFrom == null) {
-            throw new BusinessException("出发站不存在: " + req.getFrom());
+        if (!StringUtils.hasText(req.getTo())) {
+            throw new BusinessException("VALIDATION_ERROR", "到达站不能为空");
         }
-        if (sTo == null) {
-            throw new BusinessException("到达站不存在: " + req.getTo());
+
+        // 2. Otherwise price the route the same way as the quote; the quote resolves the station ids
+        FareQuote quote = fareService.calculateFare(req.getFrom(), req.getTo());
+        FareQuote.Basis basis = quote.getBasis();
+        if (basis == null) {
+            StationDirectory directory = graphService.getStationDirectory();
+            if (directory.byCode(req.getFrom()) == null) {
+                throw new BusinessException("出发站不存在: " + req.getFrom());
+            }
+            if (directory.byCode(req.getTo()) == null) {
+                throw new BusinessException("到达站不存在: " + req.getTo());
+            }
+            throw new BusinessException("无法计算票价，请检查站点是否连通");
         }
+        return insert(basis.fromStationId(), basis.toStationId(), quote.getPrice());
+    }
 
+    private Order insert(long fromStationId, long toStationId, BigDecimal price) {
         Order o = new Order();
         o.setUserId(null); // Anonymous
-        o.setFromStationId(sFrom.getId());
-        o.setToStationId(sTo.getId());
-        o.setPrice(quote.getPrice());
+        o.setFromStationId(fromStationId);
+        o.setToStationId(toStationId);
+        o.setPrice(price);
         o.setStatus(OrderStatus.CREATED);
         o.setCreatedAt(LocalDateTime.now());
         o.setUpdatedAt(LocalDateTime.now());
-        
+
         orderMapper.insert(o);
         return o;
     }
@@ -0,0 +1,165 @@
+package com.subway.ticket.service.issuance;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only local journal of issued tickets, one text record per line:
+ * {@code orderId,qrcodeTokenId,issuedAtEpochMillis}. A separate checkpoint file holds the
+ * byte offset up to which records have been committed to MySQL; everything after it is
+ * replayed on restart.
+ * <p>
+ * Appends are serialized by the caller; {@link #sync(long)} does group commit, so concurrent
+ * callers waiting for the same region share one fsync. Locks are {@link ReentrantLock}s so a
+ * virtual thread waiting on file I/O does not pin its carrier.
+ */
+public class IssuanceJournal implements Closeable {
+
+    private final FileChannel log;
+    private final FileChannel checkpoint;
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+
+    private volatile long written;
+    private volatile long synced;
+    private long committed;
+
+    public IssuanceJournal(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        this.log = FileChannel.open(dir.resolve("issuance.log"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.checkpoint = FileChannel.open(dir.resolve("issuance.checkpoint"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.committed = readCheckpoint();
+        this.written = log.size();
+        this.synced = written;
+    }
+
+    /**
+     * Records after the checkpoint, in append order. A torn last line from a crash is cut off.
+     */
+    public List<Record> pending() throws IOException {
+        List<Record> out = new ArrayList<>();
+        long size = log.size();
+        if (committed >= size) return out;
+
+        ByteBuffer buf = ByteBuffer.allocate((int) (size - committed));
+        log.read(buf, committed);
+        byte[] bytes = buf.array();
+        int lineStart = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') continue;
+            String line = new String(bytes, lineStart, i - lineStart, StandardCharsets.US_ASCII);
+            Record r = Record.parse(line, committed + i + 1);
+            if (r != null) out.add(r);
+            lineStart = i + 1;
+        }
+        if (lineStart < bytes.length) {
+            long valid = committed + lineStart;
+            log.truncate(valid);
+            written = valid;
+            synced = valid;
+        }
+        return out;
+    }
+
+    /**
+     * Writes one record and returns the journal offset just past it. Not durable until
+     * {@link #sync(long)} returns for that offset; callers must serialize appends.
+     */
+    public long append(long orderId, long qrcodeTokenId, long issuedAtMillis) throws IOException {
+        byte[] line = (orderId + "," + qrcodeTokenId + "," + issuedAtMillis + "\n").getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buf = ByteBuffer.wrap(line);
+        long pos = written;
+        while (buf.hasRemaining()) {
+            pos += log.write(buf, pos);
+        }
+        written = pos;
+        return pos;
+    }
+
+    public void sync(long offset) throws IOException {
+        if (synced >= offset) return;
+        syncLock.lock();
+        try {
+            if (synced >= offset) return;
+            long target = written;
+            log.force(false);
+            synced = target;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Marks everything up to offset as committed to MySQL.
+     */
+    public void checkpoint(long offset) throws IOException {
+        checkpointLock.lock();
+        try {
+            if (offset > committed) writeCheckpoint(offset);
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    private void writeCheckpoint(long offset) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(Long.BYTES).putLong(0, offset);
+        checkpoint.write(buf, 0);
+        checkpoint.force(false);
+        committed = offset;
+    }
+
+    /**
+     * Starts a fresh log once every record is committed. Callers must hold the append lock.
+     */
+    public boolean truncateIfDrained(long minSize) throws IOException {
+        checkpointLock.lock();
+        try {
+            if (committed < written || written < minSize) return false;
+            log.truncate(0);
+            log.force(false);
+            written = 0;
+            synced = 0;
+            writeCheckpoint(0);
+            return true;
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (checkpoint.size() < Long.BYTES) return 0;
+        ByteBuffer buf = ByteBuffer.allocate(Long.BYTES);
+        checkpoint.read(buf, 0);
+        long v = buf.getLong(0);
+        return Math.max(0, Math.min(v, log.size()));
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+        checkpoint.close();
+    }
+
+    public record Record(long orderId, long qrcodeTokenId, long issuedAtMillis, long endOffset) {
+        static Record parse(String line, long endOffset) {
+            String[] parts = line.split(",");
+            if (parts.length != 3) return null;
+            try {
+                return new Record(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]), endOffset);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.subway.ticket.service.issuance;
+
+import com.subway.ticket.config.IssuanceProperties;
+import com.subway.ticket.config.TimeOrderedIdGenerator;
+import com.subway.ticket.domain.Order;
+import com.subway.ticket.domain.QrcodeToken;
+import com.subway.ticket.domain.enums.OrderStatus;
+import com.subway.ticket.service.OrderStateMachine;
+import com.subway.ticket.service.QrReplayGuard;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ticket issuance for the kiosk. The order's PAID -> COMPLETED update always runs before the
+ * gate is answered. In write-behind mode the ticket row is then only fsync'd to the local
+ * {@link IssuanceJournal}; a scheduled flusher writes the {@code ticket} rows to MySQL in
+ * multi-row batches and advances the journal checkpoint. Records after the checkpoint are
+ * replayed on startup.
+ */
+@Slf4j
+@Service
+public class TicketIssuanceService {
+
+    private final IssuanceProperties props;
+    private final OrderStateMachine orderStateMachine;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final QrReplayGuard replayGuard;
+    private final TimeOrderedIdGenerator idGenerator;
+
+    private IssuanceJournal journal;
+    // Appending and enqueueing happen together so queue order matches journal order
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ConcurrentLinkedQueue<IssuanceJournal.Record> queue = new ConcurrentLinkedQueue<>();
+
+    public TicketIssuanceService(IssuanceProperties props, OrderStateMachine orderStateMachine,
+                                 JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 QrReplayGuard replayGuard, TimeOrderedIdGenerator idGenerator) {
+        this.props = props;
+        this.orderStateMachine = orderStateMachine;
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.replayGuard = replayGuard;
+        this.idGenerator = idGenerator;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!props.isWriteBehind()) return;
+        journal = new IssuanceJournal(Path.of(props.getJournalDir()));
+        List<IssuanceJournal.Record> replay = journal.pending();
+        long until = Instant.now().getEpochSecond() + QrReplayGuard.QR_TTL_SECONDS;
+        for (IssuanceJournal.Record r : replay) {
+            queue.add(r);
+            replayGuard.markConsumed(r.orderId(), null, until);
+        }
+        log.info("Issuance journal opened at {}, {} record(s) to replay", props.getJournalDir(), replay.size());
+    }
+
+    public boolean isWriteBehind() {
+        return journal != null;
+    }
+
+    public int backlog() {
+        return queue.size();
+    }
+
+    /**
+     * Issues the ticket for a PAID order. Returns false when this order was already issued
+     * (or is being issued concurrently), so the caller can refuse the second gate.
+     * The order is first claimed in the replay guard until its QR code expires, which turns a
+     * second gate on this instance away without a round trip. The PAID -> COMPLETED update then
+     * always runs before the gate is answered, so gates on different instances cannot both win;
+     * with write-behind only the ticket row goes through the journal.
+     */
+    public boolean issue(Order order, QrcodeToken token) {
+        long exp = token.getExpiresAt() != null
+                ? token.getExpiresAt().atZone(ZoneId.systemDefault()).toEpochSecond() : 0;
+        if (!replayGuard.tryConsume(order.getId(), exp)) return false;
+        if (journal == null) {
+            return issueNow(order, token);
+        }
+        boolean moved;
+        try {
+            moved = orderStateMachine.transition(order.getId(), OrderStatus.PAID, OrderStatus.COMPLETED);
+        } catch (RuntimeException e) {
+            replayGuard.release(order.getId());
+            throw e;
+        }
+        // A false result keeps the claim: the order is COMPLETED already
+        if (!moved) return false;
+        order.setStatus(OrderStatus.COMPLETED);
+        try {
+            long end;
+            appendLock.lock();
+            try {
+                long issuedAt = System.currentTimeMillis();
+                end = journal.append(order.getId(), token.getId(), issuedAt);
+                queue.add(new IssuanceJournal.Record(order.getId(), token.getId(), issuedAt, end));
+            } finally {
+                appendLock.unlock();
+            }
+            journal.sync(end);
+        } catch (IOException e) {
+            // The record may still be replayed; the flusher skips orders that already have a ticket
+            log.error("Issuance journal write failed for order {}, writing the ticket synchronously: {}",
+                    order.getId(), e.getMessage());
+            orderStateMachine.recordTicket(order, token, LocalDateTime.now());
+        }
+        return true;
+    }
+
+    private boolean issueNow(Order order, QrcodeToken token) {
+        try {
+            return orderStateMachine.issue(order, token, LocalDateTime.now());
+        } catch (RuntimeException e) {
+            replayGuard.release(order.getId());
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${subway.issuance.flush-interval-ms:200}")
+    public void flush() {
+        if (journal == null) return;
+        flushLock.lock();
+        try {
+            drain();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void drain() {
+        while (!queue.isEmpty()) {
+            List<IssuanceJournal.Record> batch = new ArrayList<>(props.getBatchSize());
+            Iterator<IssuanceJournal.Record> it = queue.iterator();
+            while (it.hasNext() && batch.size() < props.getBatchSize()) {
+                batch.add(it.next());
+            }
+            try {
+                tx.executeWithoutResult(status -> writeBatch(batch));
+                journal.checkpoint(batch.getLast().endOffset());
+            } catch (Exception e) {
+                log.warn("Issuance flush of {} record(s) failed, will retry: {}", batch.size(), e.getMessage());
+                return;
+            }
+            // Only this method removes from the queue, so the head is still this batch
+            for (int i = 0; i < batch.size(); i++) {
+                queue.poll();
+            }
+        }
+        appendLock.lock();
+        try {
+            if (queue.isEmpty()) journal.truncateIfDrained(props.getTruncateBytes());
+        } catch (IOException e) {
+            log.warn("Issuance journal truncate failed: {}", e.getMessage());
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Every record's order was moved to COMPLETED before it was journaled. Records replayed after
+    // a crash may already have their ticket, so orders with one are skipped
+    private void writeBatch(List<IssuanceJournal.Record> batch) {
+        List<Object> ids = new ArrayList<>(batch.size());
+        for (IssuanceJournal.Record r : batch) ids.add(r.orderId());
+        String in = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Set<Long> issued = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT order_id FROM ticket WHERE order_id IN (" + in + ")", Long.class, ids.toArray()));
+
+        StringBuilder insert = new StringBuilder(
+                "INSERT INTO ticket (id, order_id, qrcode_token_id, issued_at, status, created_at, updated_at) VALUES ");
+        List<Object> args = new ArrayList<>();
+        for (IssuanceJournal.Record r : batch) {
+            if (!issued.add(r.orderId())) continue;
+            Timestamp at = new Timestamp(r.issuedAtMillis());
+            if (!args.isEmpty()) insert.append(',');
+            insert.append("(?, ?, ?, ?, 'DISPENSED', ?, ?)");
+            args.add(idGenerator.nextId());
+            args.add(r.orderId());
+            args.add(r.qrcodeTokenId());
+            args.add(at);
+            args.add(at);
+            args.add(at);
+        }
+        if (!args.isEmpty()) {
+            jdbcTemplate.update(insert.toString(), args.toArray());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (journal == null) return;
+        flush();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("Issuance journal close failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.subway.ticket.service.network;
+
+import com.subway.ticket.domain.Line;
+import com.subway.ticket.domain.LineStation;
+import com.subway.ticket.domain.Station;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Difference between a parsed network file and the current tables. Lines are matched by code
+ * and stations by name, the same identities the import has always used, so existing rows keep
+ * their ids and every order that points at them stays valid. New rows get ids after the current
+ * maximum. Nothing is deleted: lines and stations that left the file are marked inactive, and
+ * only lines whose station sequence changed get a fresh set of line_station rows.
+ */
+final class NetworkDiff {
+
+    final List<Line> insertedLines = new ArrayList<>();
+    // Changed or deactivated lines, complete rows
+    final List<Line> updatedLines = new ArrayList<>();
+    final List<Station> insertedStations = new ArrayList<>();
+    final List<Station> updatedStations = new ArrayList<>();
+    // Line id -> its complete new station sequence
+    final Map<Long, List<LineStation>> resequenced = new LinkedHashMap<>();
+    int deactivatedLines;
+    int deactivatedStations;
+
+    private NetworkDiff() {
+    }
+
+    boolean isEmpty() {
+        return insertedLines.isEmpty() && updatedLines.isEmpty() && insertedStations.isEmpty()
+                && updatedStations.isEmpty() && resequenced.isEmpty();
+    }
+
+    List<Line> changedLines() {
+        List<Line> all = new ArrayList<>(insertedLines);
+        all.addAll(updatedLines);
+        return all;
+    }
+
+    List<Station> changedStations() {
+        List<Station> all = new ArrayList<>(insertedStations);
+        all.addAll(updatedStations);
+        return all;
+    }
+
+    /**
+     * The incoming rows are re-keyed in place to table ids, so {@code incoming} must not be reused.
+     */
+    static NetworkDiff of(NetworkJson.NetworkData incoming, List<Line> lines, List<Station> stations,
+                          List<LineStation> lineStations) {
+        NetworkDiff diff = new NetworkDiff();
+
+        Map<String, Line> lineByCode = new HashMap<>();
+        for (Line l : lines) lineByCode.putIfAbsent(l.getCode(), l);
+        long nextLineId = lines.stream().mapToLong(Line::getId).max().orElse(0) + 1;
+        Map<Long, Long> lineIds = new HashMap<>();
+        Set<Long> seenLines = new HashSet<>();
+        for (Line in : incoming.lines) {
+            Line cur = lineByCode.get(in.getCode());
+            long fileId = in.getId();
+            if (cur == null) {
+                in.setId(nextLineId++);
+                diff.insertedLines.add(in);
+            } else {
+                in.setId(cur.getId());
+                if (!sameLine(cur, in)) diff.updatedLines.add(in);
+            }
+            lineIds.put(fileId, in.getId());
+            seenLines.add(in.getId());
+        }
+        for (Line cur : lines) {
+            if (seenLines.contains(cur.getId()) || !isActive(cur.getIsActive())) continue;
+            Line off = copy(cur);
+            off.setIsActive(0);
+            diff.updatedLines.add(off);
+            diff.deactivatedLines++;
+        }
+
+        // Lowest id wins when a name occurs more than once, as in the station directory
+        Map<String, Station> stationByName = new HashMap<>();
+        stations.stream().sorted(Comparator.comparing(Station::getId))
+                .forEach(s -> stationByName.putIfAbsent(s.getName(), s));
+        long nextStationId = stations.stream().mapToLong(Station::getId).max().orElse(0) + 1;
+        Map<Long, Long> stationIds = new HashMap<>();
+        Set<Long> seenStations = new HashSet<>();
+        for (Station in : incoming.stations) {
+            Station cur = stationByName.get(in.getName());
+            long fileId = in.getId();
+            in.setLineId(lineIds.get(in.getLineId()));
+            if (cur == null) {
+                in.setId(nextStationId++);
+                diff.insertedStations.add(in);
+            } else {
+                in.setId(cur.getId());
+                if (!sameStation(cur, in)) diff.updatedStations.add(in);
+            }
+            stationIds.put(fileId, in.getId());
+            seenStations.add(in.getId());
+        }
+        for (Station cur : stations) {
+            if (seenStations.contains(cur.getId()) || !isActive(cur.getIsActive())) continue;
+            Station off = copy(cur);
+            off.setIsActive(0);
+            diff.updatedStations.add(off);
+            diff.deactivatedStations++;
+        }
+
+        Map<Long, List<Long>> currentSequences = sequences(lineStations);
+        Map<Long, List<LineStation>> incomingByLine = new LinkedHashMap<>();
+        for (LineStation ls : incoming.lineStations) {
+            ls.setLineId(lineIds.get(ls.getLineId()));
+            ls.setStationId(stationIds.get(ls.getStationId()));
+            incomingByLine.computeIfAbsent(ls.getLineId(), k -> new ArrayList<>()).add(ls);
+        }
+        long nextLineStationId = lineStations.stream().mapToLong(LineStation::getId).max().orElse(0) + 1;
+        for (Map.Entry<Long, List<LineStation>> e : incomingByLine.entrySet()) {
+            List<Long> wanted = e.getValue().stream().map(LineStation::getStationId).toList();
+            if (wanted.equals(currentSequences.get(e.getKey()))) continue;
+            for (LineStation ls : e.getValue()) ls.setId(nextLineStationId++);
+            diff.resequenced.put(e.getKey(), e.getValue());
+        }
+        return diff;
+    }
+
+    // Line id -> station ids in seq order
+    private static Map<Long, List<Long>> sequences(List<LineStation> lineStations) {
+        Map<Long, List<LineStation>> byLine = new HashMap<>();
+        for (LineStation ls : lineStations) {
+            byLine.computeIfAbsent(ls.getLineId(), k -> new ArrayList<>()).add(ls);
+        }
+        Map<Long, List<Long>> out = new HashMap<>();
+        byLine.forEach((lineId, list) -> {
+            list.sort(Comparator.comparingInt(LineStation::getSeq));
+            out.put(lineId, list.stream().map(LineStation::getStationId).toList());
+        });
+        return out;
+    }
+
+    private static boolean sameLine(Line a, Line b) {
+        return Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getColor(), b.getColor())
+                && isActive(a.getIsActive()) == isActive(b.getIsActive());
+    }
+
+    private static boolean sameStation(Station a, Station b) {
+        return Objects.equals(a.getPinyin(), b.getPinyin())
+                && Objects.equals(a.getEnName(), b.getEnName())
+                && Objects.equals(a.getLineId(), b.getLineId())
+                && Objects.equals(a.getCode(), b.getCode())
+                && sameCoordinate(a.getLng(), b.getLng())
+                && sameCoordinate(a.getLat(), b.getLat())
+                && isActive(a.getIsActive()) == isActive(b.getIsActive());
+    }
+
+    // The columns are DECIMAL(10,6); compare at that precision so rounding is not a change
+    private static boolean sameCoordinate(Double a, Double b) {
+        if (a == null || b == null) return a == b;
+        return Math.round(a * 1_000_000) == Math.round(b * 1_000_000);
+    }
+
+    private static boolean isActive(Integer flag) {
+        return flag != null && flag == 1;
+    }
+
+    private static Line copy(Line l) {
+        Line c = new Line();
+        c.setId(l.getId());
+        c.setName(l.getName());
+        c.setColor(l.getColor());
+        c.setCode(l.getCode());
+        c.setIsActive(l.getIsActive());
+        return c;
+    }
+
+    private static Station copy(Station s) {
+        Station c = new Station();
+        c.setId(s.getId());
+        c.setName(s.getName());
+        c.setPinyin(s.getPinyin());
+        c.setEnName(s.getEnName());
+        c.setLineId(s.getLineId());
+        c.setCode(s.getCode());
+        c.setLng(s.getLng());
+        c.setLat(s.getLat());
+        c.setIsActive(s.getIsActive());
+        return c;
+    }
+}
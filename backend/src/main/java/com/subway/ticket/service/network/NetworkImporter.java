@@ -0,0 +1,261 @@
+package com.subway.ticket.service.network;
+
+import com.subway.ticket.config.NetworkImportProperties;
+import com.subway.ticket.domain.Line;
+import com.subway.ticket.domain.LineStation;
+import com.subway.ticket.domain.Station;
+import com.subway.ticket.repository.LineMapper;
+import com.subway.ticket.repository.LineStationMapper;
+import com.subway.ticket.repository.StationMapper;
+import com.subway.ticket.service.GraphService;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Imports the network JSON into {@code line}, {@code station} and {@code line_station}. The file
+ * is read with the streaming parser, stations are resolved in memory, and rows go out as JDBC
+ * batches (one multi-row INSERT per batch with rewriteBatchedStatements). The SHA-256 of the
+ * file is recorded in {@code network_import}; an unchanged file is not imported again.
+ * <p>
+ * In the default {@code diff} mode only changed rows are written (see {@link NetworkDiff}) and
+ * the graph is patched with them, so opening a line is an online operation that leaves orders,
+ * tickets and payments alone. {@code replace} clears everything and loads the file from scratch.
+ */
+@Slf4j
+@Service
+public class NetworkImporter {
+
+    private final NetworkImportProperties props;
+    private final ResourceLoader resourceLoader;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final LineMapper lineMapper;
+    private final StationMapper stationMapper;
+    private final LineStationMapper lineStationMapper;
+    private final GraphService graphService;
+
+    // Startup and the admin endpoint must not diff against each other's half-written state
+    private final ReentrantLock importLock = new ReentrantLock();
+
+    public NetworkImporter(NetworkImportProperties props, ResourceLoader resourceLoader, JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager, LineMapper lineMapper,
+                           StationMapper stationMapper, LineStationMapper lineStationMapper, GraphService graphService) {
+        this.props = props;
+        this.resourceLoader = resourceLoader;
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.lineMapper = lineMapper;
+        this.stationMapper = stationMapper;
+        this.lineStationMapper = lineStationMapper;
+        this.graphService = graphService;
+    }
+
+    public ImportResult importIfChanged() throws IOException {
+        return importIfChanged(false);
+    }
+
+    /**
+     * Imports the configured file unless its hash matches the last import; {@code force} (or
+     * {@code subway.network-import.force}) imports anyway.
+     */
+    public ImportResult importIfChanged(boolean force) throws IOException {
+        importLock.lock();
+        try {
+            return doImport(force || props.isForce());
+        } finally {
+            importLock.unlock();
+        }
+    }
+
+    private ImportResult doImport(boolean force) throws IOException {
+        ImportResult result = new ImportResult();
+        result.source = props.getSource();
+        result.mode = "replace".equalsIgnoreCase(props.getMode()) ? "replace" : "diff";
+        Resource resource = resourceLoader.getResource(props.getSource());
+        if (!resource.exists()) {
+            log.warn("Network file not found: {}. Skipping import.", props.getSource());
+            result.skipped = true;
+            return result;
+        }
+
+        long start = System.nanoTime();
+        NetworkJson.NetworkData data;
+        try (InputStream in = resource.getInputStream()) {
+            data = NetworkJson.read(in);
+        }
+        result.contentHash = data.contentHash;
+
+        String previous = lastHash();
+        Integer lines = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM line", Integer.class);
+        if (!force && data.contentHash.equals(previous) && lines != null && lines > 0) {
+            log.info("Network file {} unchanged (sha256 {}), skipping import", props.getSource(), data.contentHash);
+            result.skipped = true;
+            return result;
+        }
+
+        if ("replace".equals(result.mode)) {
+            tx.executeWithoutResult(status -> replace(data));
+            result.insertedLines = data.lines.size();
+            result.insertedStations = data.stations.size();
+            result.resequencedLines = data.lines.size();
+            result.graphVersion = graphService.reload().version();
+        } else {
+            NetworkDiff diff = tx.execute(status -> applyDiff(data));
+            result.insertedLines = diff.insertedLines.size();
+            result.updatedLines = diff.updatedLines.size() - diff.deactivatedLines;
+            result.deactivatedLines = diff.deactivatedLines;
+            result.insertedStations = diff.insertedStations.size();
+            result.updatedStations = diff.updatedStations.size() - diff.deactivatedStations;
+            result.deactivatedStations = diff.deactivatedStations;
+            result.resequencedLines = diff.resequenced.size();
+            result.graphVersion = diff.isEmpty() ? graphService.getVersion()
+                    : graphService.applyNetworkChange(diff.changedLines(), diff.changedStations(), diff.resequenced).version();
+        }
+        result.millis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Imported {} ({}): lines +{} ~{} -{}, stations +{} ~{} -{}, {} station sequences, graph v{}, {} ms",
+                props.getSource(), result.mode, result.insertedLines, result.updatedLines, result.deactivatedLines,
+                result.insertedStations, result.updatedStations, result.deactivatedStations, result.resequencedLines,
+                result.graphVersion, result.millis);
+        return result;
+    }
+
+    private String lastHash() {
+        try {
+            return jdbcTemplate.queryForObject("SELECT content_hash FROM network_import WHERE source = ?",
+                    String.class, props.getSource());
+        } catch (EmptyResultDataAccessException e) {
+            return null;
+        }
+    }
+
+    private NetworkDiff applyDiff(NetworkJson.NetworkData data) {
+        NetworkDiff diff = NetworkDiff.of(data, lineMapper.selectList(null), stationMapper.selectList(null),
+                lineStationMapper.selectList(null));
+
+        // Parents before children: station references line, line_station references both
+        insertLines(diff.insertedLines);
+        jdbcTemplate.batchUpdate("UPDATE line SET name = ?, color = ?, is_active = ? WHERE id = ?",
+                diff.updatedLines, props.getBatchSize(), (ps, l) -> {
+                    ps.setString(1, l.getName());
+                    ps.setString(2, l.getColor());
+                    ps.setInt(3, l.getIsActive());
+                    ps.setLong(4, l.getId());
+                });
+        insertStations(diff.insertedStations);
+        jdbcTemplate.batchUpdate("UPDATE station SET pinyin = ?, en_name = ?, line_id = ?, code = ?, lng = ?, lat = ?,"
+                        + " is_active = ? WHERE id = ?",
+                diff.updatedStations, props.getBatchSize(), (ps, s) -> {
+                    ps.setString(1, s.getPinyin());
+                    ps.setString(2, s.getEnName());
+                    ps.setLong(3, s.getLineId());
+                    ps.setString(4, s.getCode());
+                    ps.setObject(5, s.getLng(), Types.DECIMAL);
+                    ps.setObject(6, s.getLat(), Types.DECIMAL);
+                    ps.setInt(7, s.getIsActive());
+                    ps.setLong(8, s.getId());
+                });
+
+        // Nothing references line_station rows, so a changed sequence is simply rewritten
+        List<Long> resequenced = new ArrayList<>(diff.resequenced.keySet());
+        jdbcTemplate.batchUpdate("DELETE FROM line_station WHERE line_id = ?", resequenced, props.getBatchSize(),
+                (ps, lineId) -> ps.setLong(1, lineId));
+        List<LineStation> rows = new ArrayList<>();
+        diff.resequenced.values().forEach(rows::addAll);
+        insertLineStations(rows);
+
+        recordImport(data);
+        return diff;
+    }
+
+    // Full reload: orders reference stations, so everything that hangs off them goes too
+    private void replace(NetworkJson.NetworkData data) {
+        log.info("Clearing existing data...");
+        for (String table : new String[]{"ticket", "payment", "qrcode_token", "orders", "line_station", "station", "line"}) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+        insertLines(data.lines);
+        insertStations(data.stations);
+        insertLineStations(data.lineStations);
+        recordImport(data);
+    }
+
+    private void insertLines(List<Line> lines) {
+        jdbcTemplate.batchUpdate("INSERT INTO line (id, name, color, code, is_active) VALUES (?, ?, ?, ?, ?)",
+                lines, props.getBatchSize(), (ps, l) -> {
+                    ps.setLong(1, l.getId());
+                    ps.setString(2, l.getName());
+                    ps.setString(3, l.getColor());
+                    ps.setString(4, l.getCode());
+                    ps.setInt(5, l.getIsActive());
+                });
+    }
+
+    private void insertStations(List<Station> stations) {
+        jdbcTemplate.batchUpdate("INSERT INTO station (id, name, pinyin, en_name, line_id, code, lng, lat, is_active)"
+                        + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                stations, props.getBatchSize(), (ps, s) -> {
+                    ps.setLong(1, s.getId());
+                    ps.setString(2, s.getName());
+                    ps.setString(3, s.getPinyin());
+                    ps.setString(4, s.getEnName());
+                    ps.setLong(5, s.getLineId());
+                    ps.setString(6, s.getCode());
+                    ps.setObject(7, s.getLng(), Types.DECIMAL);
+                    ps.setObject(8, s.getLat(), Types.DECIMAL);
+                    ps.setInt(9, s.getIsActive());
+                });
+    }
+
+    private void insertLineStations(List<LineStation> lineStations) {
+        jdbcTemplate.batchUpdate("INSERT INTO line_station (id, line_id, station_id, seq) VALUES (?, ?, ?, ?)",
+                lineStations, props.getBatchSize(), (ps, ls) -> {
+                    ps.setLong(1, ls.getId());
+                    ps.setLong(2, ls.getLineId());
+                    ps.setLong(3, ls.getStationId());
+                    ps.setInt(4, ls.getSeq());
+                });
+    }
+
+    private void recordImport(NetworkJson.NetworkData data) {
+        jdbcTemplate.update("INSERT INTO network_import (source, content_hash, line_count, station_count, line_station_count)"
+                        + " VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE content_hash = VALUES(content_hash),"
+                        + " line_count = VALUES(line_count), station_count = VALUES(station_count),"
+                        + " line_station_count = VALUES(line_station_count), imported_at = CURRENT_TIMESTAMP",
+                props.getSource(), data.contentHash, data.lines.size(), data.stations.size(), data.lineStations.size());
+    }
+
+    @Getter
+    @Setter
+    public static class ImportResult {
+        public String source;
+        public String mode;
+        public String contentHash;
+        // Unchanged file (or no file), nothing written
+        public boolean skipped;
+        public int insertedLines;
+        public int updatedLines;
+        public int deactivatedLines;
+        public int insertedStations;
+        public int updatedStations;
+        public int deactivatedStations;
+        // Lines whose station sequence was rewritten
+        public int resequencedLines;
+        public long graphVersion;
+        public long millis;
+    }
+}
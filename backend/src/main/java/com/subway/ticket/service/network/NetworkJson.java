@@ -0,0 +1,179 @@
+package com.subway.ticket.service.network;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.subway.ticket.domain.Line;
+import com.subway.ticket.domain.LineStation;
+import com.subway.ticket.domain.Station;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming reader for the bundled network JSON (root -> "l" lines -> "st" stations). Only the
+ * handful of fields the tables need are materialised; the large drawing data ("c", "f", ...) is
+ * skipped token by token. The SHA-256 of the raw bytes is computed on the same pass.
+ */
+public final class NetworkJson {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private NetworkJson() {
+    }
+
+    /**
+     * Parsed network with ids assigned from 1 in file order. Stations are shared by name across
+     * lines, the first occurrence defines code, line and coordinates.
+     */
+    public static final class NetworkData {
+        public final List<Line> lines = new ArrayList<>();
+        public final List<Station> stations = new ArrayList<>();
+        public final List<LineStation> lineStations = new ArrayList<>();
+        public String contentHash;
+    }
+
+    public static NetworkData read(InputStream in) throws IOException {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        DigestInputStream digestIn = new DigestInputStream(in, sha256);
+        NetworkData data = new NetworkData();
+        Map<String, Station> byName = new HashMap<>();
+
+        try (JsonParser p = JSON.createParser(digestIn)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) throw new IOException("Network JSON must be an object");
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("l".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (p.nextToken() == JsonToken.START_OBJECT) {
+                        readLine(p, data, byName);
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+            // Trailing whitespace still belongs to the file hash
+            digestIn.transferTo(OutputStream.nullOutputStream());
+        }
+        if (data.lines.isEmpty()) throw new IOException("Network JSON has no lines ('l' missing or empty)");
+        data.contentHash = HexFormat.of().formatHex(sha256.digest());
+        return data;
+    }
+
+    private static void readLine(JsonParser p, NetworkData data, Map<String, Station> byName) throws IOException {
+        String name = "";
+        String direction = "";
+        String code = "";
+        String color = "";
+        List<StationFields> stations = new ArrayList<>();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "ln" -> name = p.getValueAsString("");
+                case "la" -> direction = p.getValueAsString("");
+                case "ls" -> code = p.getValueAsString("");
+                case "cl" -> color = p.getValueAsString("");
+                case "st" -> {
+                    if (value != JsonToken.START_ARRAY) {
+                        p.skipChildren();
+                        break;
+                    }
+                    while (p.nextToken() == JsonToken.START_OBJECT) {
+                        stations.add(readStation(p));
+                    }
+                }
+                default -> p.skipChildren();
+            }
+        }
+
+        Line line = new Line();
+        line.setId((long) data.lines.size() + 1);
+        // If direction exists, append it to name for better clarity
+        line.setName(direction.isEmpty() ? name : name + " (" + direction + ")");
+        line.setCode(code);
+        line.setColor(color.isEmpty() ? "#1a4695" : color.startsWith("#") ? color : "#" + color);
+        line.setIsActive(1);
+        data.lines.add(line);
+
+        int seq = 1;
+        for (StationFields f : stations) {
+            Station station = byName.get(f.name);
+            if (station == null) {
+                station = new Station();
+                station.setId((long) data.stations.size() + 1);
+                station.setName(f.name);
+                station.setPinyin(f.pinyin);
+                station.setEnName(f.enName);
+                station.setLineId(line.getId());
+                station.setCode(f.code);
+                station.setLng(f.lng);
+                station.setLat(f.lat);
+                station.setIsActive(1);
+                byName.put(f.name, station);
+                data.stations.add(station);
+            }
+            LineStation ls = new LineStation();
+            ls.setId((long) data.lineStations.size() + 1);
+            ls.setLineId(line.getId());
+            ls.setStationId(station.getId());
+            ls.setSeq(seq++);
+            data.lineStations.add(ls);
+        }
+    }
+
+    private static StationFields readStation(JsonParser p) throws IOException {
+        StationFields f = new StationFields();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "n" -> f.name = p.getValueAsString("");
+                case "sid" -> f.code = p.getValueAsString("");
+                case "sp" -> f.pinyin = emptyToNull(p.getValueAsString());
+                case "en" -> f.enName = emptyToNull(p.getValueAsString());
+                case "sl" -> {
+                    // "lng,lat"
+                    String[] parts = p.getValueAsString("").split(",");
+                    if (parts.length == 2) {
+                        try {
+                            f.lng = Double.parseDouble(parts[0]);
+                            f.lat = Double.parseDouble(parts[1]);
+                        } catch (NumberFormatException ignored) {
+                            // Keep the station without coordinates
+                        }
+                    }
+                }
+                default -> p.skipChildren();
+            }
+        }
+        return f;
+    }
+
+    private static String emptyToNull(String s) {
+        return s == null || s.isBlank() ? null : s.trim();
+    }
+
+    private static final class StationFields {
+        String name = "";
+        String code = "";
+        String pinyin;
+        String enName;
+        Double lng;
+        Double lat;
+    }
+}
@@ -0,0 +1,202 @@
+package com.subway.ticket.web;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.subway.ticket.service.FareService;
+import com.subway.ticket.domain.Station;
+import com.subway.ticket.service.GraphService;
+import com.subway.ticket.service.fare.FareEngine;
+import com.subway.ticket.service.fare.FareSchedule;
+import com.subway.ticket.service.fare.Tariff;
+import com.subway.ticket.service.graph.CompactGraph;
+import com.subway.ticket.service.graph.GraphSnapshot;
+import com.subway.ticket.service.graph.PathResult;
+import com.subway.ticket.service.graph.SearchAlgorithm;
+import com.subway.ticket.service.network.NetworkImporter;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+    private final GraphService graphService;
+    private final FareService fareService;
+    private final NetworkImporter networkImporter;
+    private final FareEngine fareEngine;
+
+    public AdminController(GraphService graphService, FareService fareService, NetworkImporter networkImporter,
+                           FareEngine fareEngine) {
+        this.graphService = graphService;
+        this.fareService = fareService;
+        this.networkImporter = networkImporter;
+        this.fareEngine = fareEngine;
+    }
+
+    @GetMapping("/graph")
+    public ResponseEntity<GraphStatus> graph() {
+        return ResponseEntity.ok(new GraphStatus(graphService.snapshot()));
+    }
+
+    // Applies line / timetable changes without a restart; force=false only rebuilds when the tables changed
+    @PostMapping("/graph/reload")
+    public ResponseEntity<GraphStatus> reload(@RequestParam(value = "force", defaultValue = "true") boolean force) {
+        GraphSnapshot snapshot = force ? graphService.reload() : graphService.reloadIfChanged();
+        return ResponseEntity.ok(new GraphStatus(snapshot));
+    }
+
+    // Re-reads the network file and applies what changed (e.g. a line opening) to the tables and the live graph
+    @PostMapping("/network/import")
+    public ResponseEntity<NetworkImporter.ImportResult> importNetwork(
+            @RequestParam(value = "force", defaultValue = "false") boolean force) throws IOException {
+        return ResponseEntity.ok(networkImporter.importIfChanged(force));
+    }
+
+    // Runs every point-to-point search for one pair and reports nodes settled and time taken
+    @GetMapping("/graph/route")
+    public ResponseEntity<List<SearchReport>> route(@RequestParam("from") String fromCode, @RequestParam("to") String toCode) {
+        GraphSnapshot snapshot = graphService.snapshot();
+        Station from = snapshot.stations().byCode(fromCode);
+        Station to = snapshot.stations().byCode(toCode);
+        if (from == null || to == null) return ResponseEntity.badRequest().build();
+
+        CompactGraph graph = snapshot.graph();
+        int[] starts = graph.nodesByName(from.getName());
+        int[] ends = graph.nodesByName(to.getName());
+        List<SearchReport> reports = new ArrayList<>();
+        PathResult reference = null;
+        for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+            long start = System.nanoTime();
+            PathResult r = snapshot.findPath(starts, ends, algorithm);
+            long micros = (System.nanoTime() - start) / 1000;
+            if (reference == null) reference = r;
+            reports.add(new SearchReport(algorithm, r, micros, reference));
+        }
+        return ResponseEntity.ok(reports);
+    }
+
+    @GetMapping("/fares/cache")
+    public ResponseEntity<QuoteCacheStatus> quoteCache() {
+        return ResponseEntity.ok(new QuoteCacheStatus(fareService.quoteCacheStats(), fareService.quoteCacheSize()));
+    }
+
+    // Graph reloads and fare schedule changes clear the cache on their own
+    @PostMapping("/fares/cache/clear")
+    public ResponseEntity<QuoteCacheStatus> clearQuoteCache() {
+        fareService.invalidateQuotes();
+        return quoteCache();
+    }
+
+    @GetMapping("/fares/schedule")
+    public ResponseEntity<FareScheduleStatus> fareSchedule() {
+        return ResponseEntity.ok(new FareScheduleStatus(fareEngine.schedule(), fareEngine.tariff()));
+    }
+
+    // Recompiles the tariffs now instead of waiting for the next fare_rule change check
+    @PostMapping("/fares/reload")
+    public ResponseEntity<FareScheduleStatus> reloadFares() {
+        FareSchedule schedule = fareEngine.reload();
+        return ResponseEntity.ok(new FareScheduleStatus(schedule, fareEngine.tariff()));
+    }
+
+    @Getter
+    @Setter
+    public static class GraphStatus {
+        public long version;
+        public Instant builtAt;
+        public int nodes;
+        public int arcs;
+        public int stations;
+        public boolean allPairs;
+        public SearchAlgorithm search;
+        // Contraction hierarchy shortcuts, 0 when no hierarchy was built
+        public int shortcuts;
+
+        public GraphStatus(GraphSnapshot s) {
+            this.version = s.version();
+            this.builtAt = s.builtAt();
+            this.nodes = s.graph().nodeCount();
+            this.arcs = s.graph().edgeCount();
+            this.stations = s.graph().stationCount();
+            this.allPairs = s.hasAllPairs();
+            this.search = s.search();
+            this.shortcuts = s.contraction() != null ? s.contraction().shortcutCount() : 0;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class SearchReport {
+        public SearchAlgorithm algorithm;
+        public boolean found;
+        public int cost;
+        public int segments;
+        public int settled;
+        public long micros;
+        // Same node sequence as the Dijkstra result
+        public boolean samePath;
+
+        public SearchReport(SearchAlgorithm algorithm, PathResult r, long micros, PathResult reference) {
+            this.algorithm = algorithm;
+            this.found = r != null;
+            this.cost = r != null ? r.cost : 0;
+            this.segments = r != null ? r.distance : 0;
+            this.settled = r != null ? r.settled : 0;
+            this.micros = micros;
+            this.samePath = r == null ? reference == null : reference != null && Arrays.equals(r.path, reference.path);
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class QuoteCacheStatus {
+        public long size;
+        public long hits;
+        public long misses;
+        public double hitRate;
+        public long evictions;
+        public long loads;
+        public double averageLoadMillis;
+        public double totalLoadMillis;
+
+        public QuoteCacheStatus(CacheStats stats, long size) {
+            this.size = size;
+            this.hits = stats.hitCount();
+            this.misses = stats.missCount();
+            this.hitRate = stats.hitRate();
+            this.evictions = stats.evictionCount();
+            this.loads = stats.loadCount();
+            this.averageLoadMillis = stats.averageLoadPenalty() / 1_000_000.0;
+            this.totalLoadMillis = stats.totalLoadTime() / 1_000_000.0;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class FareScheduleStatus {
+        public String version;
+        public String source;
+        public String zone;
+        // Tariff in force right now
+        public String current;
+        public List<String> tariffs;
+
+        public FareScheduleStatus(FareSchedule s, Tariff current) {
+            this.version = s.version();
+            this.source = s.source();
+            this.zone = s.zone().getId();
+            this.current = current.name();
+            this.tariffs = s.tariffs().stream().map(Tariff::name).toList();
+        }
+    }
+}
@@ -1,33 +1,56 @@
 package com.subway.ticket.web;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.subway.ticket.dto.BatchQuoteReq;
 import com.subway.ticket.dto.FareQuote;
+import com.subway.ticket.dto.FareTable;
 import com.subway.ticket.service.FareService;
+import com.subway.ticket.service.QuoteTokenService;
+import com.subway.ticket.service.graph.RouteObjective;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.HtmlUtils;
 
+import java.util.List;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/fares")
 public class FareController {
 
+    private static final int MAX_BATCH_SIZE = 500;
+
     private final FareService fareService;
+    private final QuoteTokenService quoteTokenService;
+    private final ObjectMapper objectMapper;
 
-    public FareController(FareService fareService) {
+    public FareController(FareService fareService, QuoteTokenService quoteTokenService, ObjectMapper objectMapper) {
         this.fareService = fareService;
+        this.quoteTokenService = quoteTokenService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/quote")
-    public ResponseEntity<FareQuote> quote(@RequestParam("from") String fromCode, @RequestParam("to") String toCode) {
+    public ResponseEntity<FareQuote> quote(@RequestParam("from") String fromCode, @RequestParam("to") String toCode,
+                                           @RequestParam(value = "objective", required = false) String objectiveParam,
+                                           @RequestParam(value = "alternatives", required = false) Integer alternatives) {
         // Sanitize input immediately to satisfy taint analysis
         fromCode = HtmlUtils.htmlEscape(fromCode);
         toCode = HtmlUtils.htmlEscape(toCode);
 
-        log.info("Request fare quote from: {} to: {}", fromCode, toCode);
+        // Per-request volume and latency are in the http.server.requests metrics
+        log.debug("Request fare quote from: {} to: {}", fromCode, toCode);
 
         // Basic XSS prevention/validation for station codes
         if (isInvalidCode(fromCode) || isInvalidCode(toCode)) {
@@ -35,12 +58,21 @@ public class FareController {
             return ResponseEntity.badRequest().build();
         }
 
+        // objective / alternatives switch to the multi-criteria route choice
+        RouteObjective objective = RouteObjective.parse(objectiveParam);
+        if (objective == null || (alternatives != null && alternatives < 1)) {
+            log.warn("Invalid routing options: objective={}, alternatives={}", objectiveParam, alternatives);
+            return ResponseEntity.badRequest().build();
+        }
+        boolean routeChoice = objectiveParam != null || alternatives != null;
+
         try {
-            FareQuote quote = fareService.calculateFare(fromCode, toCode);
-            
-            // Explicitly escape strings to satisfy taint analysis
-            if (quote.getFrom() != null) quote.setFrom(HtmlUtils.htmlEscape(quote.getFrom()));
-            if (quote.getTo() != null) quote.setTo(HtmlUtils.htmlEscape(quote.getTo()));
+            // Quotes may come from the shared cache, so they must not be modified here;
+            // from/to are the codes escaped and validated above
+            FareQuote quote = routeChoice
+                    ? fareService.calculateRoutes(fromCode, toCode, objective,
+                            Math.min(alternatives != null ? alternatives : 1, fareService.maxAlternatives()))
+                    : fareService.calculateFare(fromCode, toCode);
             
             if ("STATION_NOT_FOUND".equals(quote.getMode())) {
                 log.warn("Station not found. From: {}, To: {}", fromCode, toCode);
@@ -57,14 +89,88 @@ public class FareController {
                  // But current logic uses 400 for errors.
                  return ResponseEntity.badRequest().body(quote);
             }
-            
-            return ResponseEntity.ok(quote);
+
+
+            // The order is created from this token without pricing the route again
+            return ResponseEntity.ok(quote.withQuoteToken(quoteTokenService.issue(quote)));
         } catch (Exception e) {
             log.error("Error calculating fare", e);
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    // One origin with many destinations, or a list of pairs, answered in a single response
+    @PostMapping("/quotes")
+    public ResponseEntity<List<FareQuote>> quotes(@RequestBody BatchQuoteReq req) {
+        boolean byOrigin = req.getFrom() != null && req.getTo() != null;
+        int size = byOrigin ? req.getTo().size() : (req.getPairs() != null ? req.getPairs().size() : 0);
+        if (size == 0 || size > MAX_BATCH_SIZE) {
+            log.warn("Invalid batch quote size: {}", size);
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (byOrigin) {
+            if (isInvalidCode(req.getFrom()) || req.getTo().stream().anyMatch(this::isInvalidCode)) {
+                return ResponseEntity.badRequest().build();
+            }
+            return ResponseEntity.ok(fareService.calculateFares(req.getFrom(), req.getTo()));
+        }
+
+        for (BatchQuoteReq.Pair p : req.getPairs()) {
+            if (p == null || isInvalidCode(p.getFrom()) || isInvalidCode(p.getTo())) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        return ResponseEntity.ok(fareService.calculateFares(req.getPairs()));
+    }
+
+    // Price to every reachable station, e.g. to colour the map; revalidates with ETag per network and tariff
+    @GetMapping("/table")
+    public ResponseEntity<StreamingResponseBody> table(@RequestParam("from") String fromCode, WebRequest request) {
+        if (isInvalidCode(fromCode)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String etag = "\"" + fareService.currentNetworkTag() + "-" + fareService.currentFareVersion() + "-" + fromCode + "\"";
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        FareTable table = fareService.fareTable(fromCode);
+        if (table == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Rows are written as [code, segments, price] arrays to keep the payload small
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+                gen.writeStartObject();
+                gen.writeStringField("from", table.getFrom());
+                gen.writeStringField("network", table.getNetwork());
+                gen.writeStringField("tariff", table.getTariff());
+                gen.writeArrayFieldStart("columns");
+                gen.writeString("code");
+                gen.writeString("segments");
+                gen.writeString("price");
+                gen.writeEndArray();
+                gen.writeArrayFieldStart("rows");
+                for (FareTable.Entry e : table.getEntries()) {
+                    gen.writeStartArray();
+                    gen.writeString(e.getCode());
+                    gen.writeNumber(e.getSegments());
+                    gen.writeNumber(e.getPrice());
+                    gen.writeEndArray();
+                }
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok()
+                .eTag("\"" + table.getNetwork() + "-" + table.getFareVersion() + "-" + fromCode + "\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
     private boolean isInvalidCode(String code) {
         return code == null || !code.matches("^[a-zA-Z0-9\\-]+$");
     }
@@ -3,15 +3,17 @@ package com.subway.ticket.web;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.subway.ticket.domain.Order;
 import com.subway.ticket.domain.QrcodeToken;
-import com.subway.ticket.domain.Ticket;
 import com.subway.ticket.domain.enums.OrderStatus;
+import com.subway.ticket.exception.BusinessException;
 import com.subway.ticket.repository.OrderMapper;
 import com.subway.ticket.repository.QrcodeTokenMapper;
-import com.subway.ticket.repository.TicketMapper;
+import com.subway.ticket.service.QrReplayGuard;
 import com.subway.ticket.service.QrSignService;
 import com.subway.ticket.service.StationService;
+import com.subway.ticket.service.issuance.TicketIssuanceService;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -20,36 +22,53 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.math.BigDecimal;
 import java.time.Instant;
-import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/api")
 public class KioskController {
     private final OrderMapper orderMapper;
     private final QrcodeTokenMapper qrcodeTokenMapper;
-    private final TicketMapper ticketMapper;
+    private final TicketIssuanceService ticketIssuance;
     private final QrSignService qrSignService;
     private final StationService stationService;
+    private final QrReplayGuard replayGuard;
 
-    public KioskController(OrderMapper orderMapper, QrcodeTokenMapper qrcodeTokenMapper, TicketMapper ticketMapper, StationService stationService) {
+    // Validate self-contained QR payloads from the signature and in-memory replay state alone
+    @Value("${subway.kiosk.stateless-validation:true}")
+    private boolean statelessValidation;
+
+    public KioskController(OrderMapper orderMapper, QrcodeTokenMapper qrcodeTokenMapper, TicketIssuanceService ticketIssuance, StationService stationService, QrSignService qrSignService, QrReplayGuard replayGuard) {
         this.orderMapper = orderMapper;
         this.qrcodeTokenMapper = qrcodeTokenMapper;
-        this.ticketMapper = ticketMapper;
+        this.ticketIssuance = ticketIssuance;
         this.stationService = stationService;
-        String secret = System.getenv("QR_SIGNING_SECRET");
-        if (secret == null || secret.isEmpty()) secret = "dev-secret";
-        this.qrSignService = new QrSignService(secret);
+        this.qrSignService = qrSignService;
+        this.replayGuard = replayGuard;
     }
 
     @PostMapping("/kiosk/validate")
     public ResponseEntity<ValidateResp> validate(@RequestBody QrPayload qr) {
-        String data = qr.orderId + ":" + qr.nonce + ":" + qr.exp;
-        if (!qrSignService.verify(data, qr.sign)) {
+        if (qr.orderId == null) {
+            return ResponseEntity.ok(new ValidateResp(false, "SIGN_INVALID"));
+        }
+        // Payloads carrying the signed route are self-contained; older ones still go through MySQL
+        boolean selfContained = qr.from != null && qr.to != null;
+        boolean signed = selfContained
+                ? qrSignService.verify(qr.orderId, qr.nonce, qr.exp, qr.from, qr.to, qr.sign)
+                : qrSignService.verify(qr.orderId, qr.nonce, qr.exp, qr.sign);
+        if (!signed) {
             return ResponseEntity.ok(new ValidateResp(false, "SIGN_INVALID"));
         }
         if (qr.exp <= Instant.now().getEpochSecond()) {
             return ResponseEntity.ok(new ValidateResp(false, "EXPIRED"));
         }
+        if (replayGuard.isConsumed(qr.orderId, qr.nonce)) {
+            return ResponseEntity.ok(new ValidateResp(false, "TICKET_ALREADY_ISSUED"));
+        }
+        if (selfContained && statelessValidation) {
+            return ResponseEntity.ok(new ValidateResp(true, "OK"));
+        }
+
         Order o = orderMapper.selectById(qr.orderId);
         if (o == null) return ResponseEntity.ok(new ValidateResp(false, "ORDER_NOT_FOUND"));
         
@@ -73,23 +92,26 @@ public class KioskController {
         info.toStation = stationService.getStationNameById(o.getToStationId());
         info.price = o.getPrice();
         
-        if (OrderStatus.COMPLETED == o.getStatus()) return ResponseEntity.ok(new IssueResp(true, info));
-        
+        // The order row is only read for the ticket details; ticketIssuance claims the order and
+        // moves it PAID -> COMPLETED, and the gate that loses either race dispenses nothing
+        if (OrderStatus.COMPLETED == o.getStatus()) {
+            replayGuard.markConsumed(o.getId(), qr.nonce, qr.exp);
+            throw new BusinessException("TICKET_ALREADY_ISSUED", "该订单已出票");
+        }
+        if (OrderStatus.PAID != o.getStatus()) {
+            throw new BusinessException("ORDER_NOT_PAID", "订单未支付");
+        }
+
         QrcodeToken t = qrcodeTokenMapper.selectOne(new QueryWrapper<QrcodeToken>().eq("order_id", qr.orderId).eq("nonce", qr.nonce).last("limit 1"));
         if (t == null) return ResponseEntity.badRequest().build();
-        
-        Ticket ticket = new Ticket();
-        ticket.setOrderId(o.getId());
-        ticket.setQrcodeTokenId(t.getId());
-        ticket.setIssuedAt(LocalDateTime.now());
-        ticket.setStatus("DISPENSED");
-        ticket.setCreatedAt(LocalDateTime.now());
-        ticket.setUpdatedAt(LocalDateTime.now());
-        ticketMapper.insert(ticket);
-        
-        o.setStatus(OrderStatus.COMPLETED);
-        orderMapper.updateById(o);
-        
+
+        // With write-behind this returns once the local journal is synced; MySQL catches up shortly after
+        boolean issued = ticketIssuance.issue(o, t);
+        replayGuard.markConsumed(o.getId(), qr.nonce, qr.exp);
+        if (!issued) {
+            throw new BusinessException("TICKET_ALREADY_ISSUED", "该订单已出票");
+        }
+
         return ResponseEntity.ok(new IssueResp(true, info));
     }
 
@@ -99,6 +121,8 @@ public class KioskController {
         public Long orderId;
         public String nonce;
         public long exp;
+        public Long from;
+        public Long to;
         public String sign;
     }
 
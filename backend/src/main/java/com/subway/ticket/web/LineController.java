@@ -1,27 +1,24 @@
 package com.subway.ticket.web;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
-import com.subway.ticket.domain.Line;
-import com.subway.ticket.repository.LineMapper;
+import com.subway.ticket.service.NetworkResponseCache;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api")
 public class LineController {
-    private final LineMapper lineMapper;
+    private final NetworkResponseCache networkResponses;
 
-    public LineController(LineMapper lineMapper) {
-        this.lineMapper = lineMapper;
+    public LineController(NetworkResponseCache networkResponses) {
+        this.networkResponses = networkResponses;
     }
 
+    // Pre-serialized per graph version; answers 304 when the ETag still matches
     @GetMapping("/lines")
-    public ResponseEntity<List<Line>> lines() {
-        List<Line> list = lineMapper.selectList(new QueryWrapper<Line>().eq("is_active", 1));
-        return ResponseEntity.ok(list);
+    public ResponseEntity<byte[]> lines(WebRequest request) {
+        return networkResponses.lines().toResponse(request);
     }
 }
@@ -2,43 +2,31 @@ package com.subway.ticket.web;
 
 import com.subway.ticket.domain.Order;
 import com.subway.ticket.domain.Payment;
-import com.subway.ticket.domain.enums.OrderStatus;
 import com.subway.ticket.repository.OrderMapper;
-import com.subway.ticket.repository.PaymentMapper;
+import com.subway.ticket.service.OrderStateMachine;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
-
 @RestController
 @RequestMapping("/api/payments")
 public class PaymentController {
-    private final PaymentMapper paymentMapper;
     private final OrderMapper orderMapper;
+    private final OrderStateMachine orderStateMachine;
 
-    public PaymentController(PaymentMapper paymentMapper, OrderMapper orderMapper) {
-        this.paymentMapper = paymentMapper;
+    public PaymentController(OrderMapper orderMapper, OrderStateMachine orderStateMachine) {
         this.orderMapper = orderMapper;
+        this.orderStateMachine = orderStateMachine;
     }
 
     @PostMapping("/mock")
     public ResponseEntity<Payment> mock(@RequestBody MockPayReq req) {
         Order o = orderMapper.selectById(req.orderId);
         if (o == null) return ResponseEntity.badRequest().build();
-        Payment p = new Payment();
-        p.setOrderId(o.getId());
-        p.setAmount(o.getPrice() != null ? o.getPrice() : new BigDecimal("0"));
-        p.setStatus("SUCCESS");
-        p.setPaidAt(LocalDateTime.now());
-        p.setChannel("MOCK");
-        p.setCreatedAt(LocalDateTime.now());
-        paymentMapper.insert(p);
-        o.setStatus(OrderStatus.PAID);
-        orderMapper.updateById(o);
+        // CREATED -> PAID decides a double submit; only the winner records a payment
+        Payment p = orderStateMachine.pay(o, "MOCK");
         return ResponseEntity.ok(p);
     }
 
@@ -5,6 +5,7 @@ import com.subway.ticket.domain.QrcodeToken;
 import com.subway.ticket.domain.enums.OrderStatus;
 import com.subway.ticket.repository.OrderMapper;
 import com.subway.ticket.repository.QrcodeTokenMapper;
+import com.subway.ticket.service.QrReplayGuard;
 import com.subway.ticket.service.QrSignService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -24,12 +25,10 @@ public class QrcodeController {
     private final QrcodeTokenMapper qrcodeTokenMapper;
     private final QrSignService qrSignService;
 
-    public QrcodeController(OrderMapper orderMapper, QrcodeTokenMapper qrcodeTokenMapper) {
+    public QrcodeController(OrderMapper orderMapper, QrcodeTokenMapper qrcodeTokenMapper, QrSignService qrSignService) {
         this.orderMapper = orderMapper;
         this.qrcodeTokenMapper = qrcodeTokenMapper;
-        String secret = System.getenv("QR_SIGNING_SECRET");
-        if (secret == null || secret.isEmpty()) secret = "dev-secret";
-        this.qrSignService = new QrSignService(secret);
+        this.qrSignService = qrSignService;
     }
 
     @GetMapping("/orders/{id}/qrcode")
@@ -44,10 +43,12 @@ public class QrcodeController {
         if (OrderStatus.PAID != o.getStatus()) return ResponseEntity.badRequest().build();
         
         String nonce = UUID.randomUUID().toString();
-        long expEpoch = Instant.now().plusSeconds(15 * 60).getEpochSecond();
-        String data = id + ":" + nonce + ":" + expEpoch;
-        String sign = qrSignService.sign(data);
-        String payloadJson = String.format("{\"orderId\":%d,\"nonce\":\"%s\",\"exp\":%d,\"sign\":\"%s\"}", id, nonce, expEpoch, sign);
+        long expEpoch = Instant.now().plusSeconds(QrReplayGuard.QR_TTL_SECONDS).getEpochSecond();
+        // Route is signed into the payload so the gate can validate without a DB lookup
+        long from = o.getFromStationId();
+        long to = o.getToStationId();
+        String sign = qrSignService.sign(id, nonce, expEpoch, from, to);
+        String payloadJson = String.format("{\"orderId\":%d,\"nonce\":\"%s\",\"exp\":%d,\"from\":%d,\"to\":%d,\"sign\":\"%s\"}", id, nonce, expEpoch, from, to, sign);
         QrcodeToken t = new QrcodeToken();
         t.setOrderId(id);
         t.setNonce(nonce);
@@ -56,7 +57,7 @@ public class QrcodeController {
         t.setPayload(payloadJson);
         t.setCreatedAt(LocalDateTime.now());
         qrcodeTokenMapper.insert(t);
-        return ResponseEntity.ok(new QrPayload(id, nonce, expEpoch, sign));
+        return ResponseEntity.ok(new QrPayload(id, nonce, expEpoch, from, to, sign));
     }
     
     public static class ErrorResp {
@@ -69,11 +70,15 @@ public class QrcodeController {
         public Long orderId;
         public String nonce;
         public long exp;
+        public Long from;
+        public Long to;
         public String sign;
-        public QrPayload(Long orderId, String nonce, long exp, String sign) {
+        public QrPayload(Long orderId, String nonce, long exp, Long from, Long to, String sign) {
             this.orderId = orderId;
             this.nonce = nonce;
             this.exp = exp;
+            this.from = from;
+            this.to = to;
             this.sign = sign;
         }
     }
@@ -1,12 +1,14 @@
 package com.subway.ticket.web;
 
 import com.subway.ticket.domain.Station;
+import com.subway.ticket.service.NetworkResponseCache;
 import com.subway.ticket.service.StationService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -14,19 +16,22 @@ import java.util.List;
 @RequestMapping("/api")
 public class StationController {
     private final StationService stationService;
+    private final NetworkResponseCache networkResponses;
 
-    public StationController(StationService stationService) {
+    public StationController(StationService stationService, NetworkResponseCache networkResponses) {
         this.stationService = stationService;
+        this.networkResponses = networkResponses;
     }
 
+    // Line and full station lists are pre-serialized per graph version; 304 when the ETag matches
     @GetMapping("/stations")
-    public ResponseEntity<List<Station>> stations(@RequestParam("lineId") Long lineId) {
-        return ResponseEntity.ok(stationService.getStationsByLine(lineId));
+    public ResponseEntity<byte[]> stations(@RequestParam("lineId") Long lineId, WebRequest request) {
+        return networkResponses.stationsOfLine(lineId).toResponse(request);
     }
 
     @GetMapping("/stations/all")
-    public ResponseEntity<List<Station>> all() {
-        return ResponseEntity.ok(stationService.getAllStations());
+    public ResponseEntity<byte[]> all(WebRequest request) {
+        return networkResponses.allStations().toResponse(request);
     }
     
     @GetMapping("/stations/search")
@@ -0,0 +1,2 @@
+-- Kiosk issue looks tokens up by (order_id, nonce)
+CREATE INDEX idx_qr_order_nonce ON qrcode_token(order_id, nonce);
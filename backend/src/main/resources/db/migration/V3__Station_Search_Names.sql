@@ -0,0 +1,4 @@
+-- Pinyin ("XiangHu") and English name from the network JSON, used by the in-memory station search
+ALTER TABLE station
+  ADD COLUMN pinyin VARCHAR(128) NULL AFTER name,
+  ADD COLUMN en_name VARCHAR(128) NULL AFTER pinyin;
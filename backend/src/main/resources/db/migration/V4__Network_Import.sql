@@ -0,0 +1,9 @@
+-- Content hash of the last imported network file, so unchanged files are not re-imported on boot
+CREATE TABLE IF NOT EXISTS network_import (
+  source VARCHAR(191) PRIMARY KEY,
+  content_hash CHAR(64) NOT NULL,
+  line_count INT NOT NULL,
+  station_count INT NOT NULL,
+  line_station_count INT NOT NULL,
+  imported_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
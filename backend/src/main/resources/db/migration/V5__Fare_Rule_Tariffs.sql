@@ -0,0 +1,10 @@
+-- One active fare_rule row is one tariff: base_price up to base_segments, then per_segment_price
+-- for every further segment. Rows with day_type / start_time / end_time apply only in that window
+-- (first match by id); a row without them is the all-day default.
+ALTER TABLE fare_rule
+  ADD COLUMN base_segments INT NOT NULL DEFAULT 0 AFTER per_segment_price,
+  -- weekday, weekend, daily or comma-separated day names (MON,TUE,...); NULL = every day
+  ADD COLUMN day_type VARCHAR(64) NULL AFTER base_segments,
+  -- start inclusive, end exclusive; an end before the start wraps past midnight
+  ADD COLUMN start_time TIME NULL AFTER day_type,
+  ADD COLUMN end_time TIME NULL AFTER start_time;
@@ -0,0 +1,93 @@
+package com.subway.ticket.bench;
+
+import com.subway.ticket.config.FareProperties;
+import com.subway.ticket.config.GraphProperties;
+import com.subway.ticket.domain.Line;
+import com.subway.ticket.domain.LineStation;
+import com.subway.ticket.domain.Station;
+import com.subway.ticket.service.FareService;
+import com.subway.ticket.service.GraphService;
+import com.subway.ticket.service.fare.FareEngine;
+import com.subway.ticket.service.graph.GraphSnapshot;
+import com.subway.ticket.service.network.NetworkJson;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Loads the bundled hangzhou_subway.json with the same parser NetworkImporter uses, but into
+ * plain lists instead of MySQL, and wires GraphService / FareService around them.
+ */
+public final class HangzhouNetwork {
+
+    public final List<Line> lines = new ArrayList<>();
+    public final List<Station> stations = new ArrayList<>();
+    public final List<LineStation> lineStations = new ArrayList<>();
+    public final GraphProperties graphProperties;
+    public final FareProperties fareProperties;
+    public final GraphService graphService;
+
+    public HangzhouNetwork(String allPairsMode) {
+        readJson();
+        Binder binder = applicationYaml();
+        this.graphProperties = binder.bind("subway.graph", GraphProperties.class).orElseGet(GraphProperties::new);
+        this.graphProperties.getAllPairs().setMode(allPairsMode);
+        this.fareProperties = binder.bind("subway.fare", FareProperties.class).get();
+        this.graphService = new GraphService(null, null, null, null, event -> { }, graphProperties, new SimpleMeterRegistry());
+        graphService.publish(lines, stations, lineStations, "bench");
+    }
+
+    public GraphSnapshot snapshot() {
+        return graphService.snapshot();
+    }
+
+    public FareService fareService(boolean cacheEnabled) {
+        FareEngine fareEngine = new FareEngine(fareProperties, null, null, event -> { }, new SimpleMeterRegistry());
+        return new FareService(graphService, fareEngine, graphProperties, new SimpleMeterRegistry(), cacheEnabled, 20000);
+    }
+
+    /**
+     * Fixed-seed station code pairs so every run and thread sees the same workload.
+     */
+    public String[][] randomCodePairs(int count, long seed) {
+        Random r = new Random(seed);
+        String[][] pairs = new String[count][];
+        for (int i = 0; i < count; i++) {
+            Station a = stations.get(r.nextInt(stations.size()));
+            Station b = stations.get(r.nextInt(stations.size()));
+            pairs[i] = new String[]{a.getCode(), b.getCode()};
+        }
+        return pairs;
+    }
+
+    private void readJson() {
+        try (InputStream in = new ClassPathResource("hangzhou_subway.json").getInputStream()) {
+            NetworkJson.NetworkData data = NetworkJson.read(in);
+            lines.addAll(data.lines);
+            stations.addAll(data.stations);
+            lineStations.addAll(data.lineStations);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Binder applicationYaml() {
+        try {
+            List<PropertySource<?>> sources = new YamlPropertySourceLoader()
+                    .load("application", new ClassPathResource("application.yml"));
+            return new Binder(ConfigurationPropertySources.from(sources));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.subway.ticket.bench;
+
+import com.subway.ticket.config.GraphProperties;
+import com.subway.ticket.domain.Line;
+import com.subway.ticket.domain.LineStation;
+import com.subway.ticket.domain.Station;
+import com.subway.ticket.service.GraphService;
+import com.subway.ticket.service.graph.GraphSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generated city-scale network for routing benchmarks beyond the size of the bundled data.
+ * Stations sit on a square grid (about 1 km apart); every line is a mostly straight walk across
+ * the grid that turns now and then, and lines crossing at a grid point share that station, so
+ * transfer hubs appear where the real network would have them. Fixed seeds make runs repeatable.
+ */
+public final class SyntheticNetwork {
+
+    public final List<Line> lines = new ArrayList<>();
+    public final List<Station> stations = new ArrayList<>();
+    public final List<LineStation> lineStations = new ArrayList<>();
+    public final GraphService graphService;
+
+    public SyntheticNetwork(int lineCount, int stationsPerLine, long seed) {
+        generate(lineCount, stationsPerLine, seed);
+        GraphProperties props = new GraphProperties();
+        props.getAllPairs().setMode("off");
+        this.graphService = new GraphService(null, null, null, null, event -> { }, props, new SimpleMeterRegistry());
+        graphService.publish(lines, stations, lineStations, "synthetic");
+    }
+
+    public GraphSnapshot snapshot() {
+        return graphService.snapshot();
+    }
+
+    /**
+     * Fixed-seed station name pairs so every run and thread sees the same workload.
+     */
+    public String[][] randomNamePairs(int count, long seed) {
+        Random r = new Random(seed);
+        String[][] pairs = new String[count][];
+        for (int i = 0; i < count; i++) {
+            pairs[i] = new String[]{
+                    stations.get(r.nextInt(stations.size())).getName(),
+                    stations.get(r.nextInt(stations.size())).getName()};
+        }
+        return pairs;
+    }
+
+    private void generate(int lineCount, int stationsPerLine, long seed) {
+        Random r = new Random(seed);
+        // Roughly two lines through every station on average keeps transfers common but not universal
+        int side = Math.max(4, (int) Math.sqrt(lineCount * (double) stationsPerLine / 2));
+        Map<Integer, Station> byCell = new HashMap<>();
+        int[][] moves = {{1, 0}, {0, 1}, {-1, 0}, {0, -1}};
+        long lsId = 1;
+
+        for (int l = 0; l < lineCount; l++) {
+            Line line = new Line();
+            line.setId((long) l + 1);
+            line.setName("L" + (l + 1) + "号线");
+            line.setCode("L" + (l + 1));
+            line.setColor("#888888");
+            line.setIsActive(1);
+            lines.add(line);
+
+            int x = r.nextInt(side);
+            int y = r.nextInt(side);
+            int dir = r.nextInt(4);
+            List<Integer> visited = new ArrayList<>();
+            for (int seq = 1; seq <= stationsPerLine; seq++) {
+                int cell = y * side + x;
+                if (visited.contains(cell)) break;
+                visited.add(cell);
+
+                Station station = byCell.get(cell);
+                if (station == null) {
+                    station = new Station();
+                    station.setId((long) stations.size() + 1);
+                    station.setName("S" + x + "-" + y);
+                    station.setCode(String.format("%08d", cell));
+                    station.setLineId(line.getId());
+                    station.setLng(120.0 + x * 0.01);
+                    station.setLat(30.0 + y * 0.009);
+                    station.setIsActive(1);
+                    byCell.put(cell, station);
+                    stations.add(station);
+                }
+                LineStation ls = new LineStation();
+                ls.setId(lsId++);
+                ls.setLineId(line.getId());
+                ls.setStationId(station.getId());
+                ls.setSeq(seq);
+                lineStations.add(ls);
+
+                // Keep heading the same way most of the time, turn left or right otherwise
+                if (r.nextInt(5) == 0) dir = (dir + (r.nextBoolean() ? 1 : 3)) % 4;
+                int nx = x + moves[dir][0];
+                int ny = y + moves[dir][1];
+                if (nx < 0 || ny < 0 || nx >= side || ny >= side) {
+                    dir = (dir + 2) % 4;
+                    nx = x + moves[dir][0];
+                    ny = y + moves[dir][1];
+                }
+                x = nx;
+                y = ny;
+            }
+        }
+    }
+}
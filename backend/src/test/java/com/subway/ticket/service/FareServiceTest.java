@@ -0,0 +1,40 @@
+package com.subway.ticket.service;
+
+import com.subway.ticket.bench.HangzhouNetwork;
+import com.subway.ticket.domain.Station;
+import com.subway.ticket.dto.FareQuote;
+import com.subway.ticket.dto.FareTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FareServiceTest {
+
+    private final HangzhouNetwork network = new HangzhouNetwork("off");
+    private final FareService fareService = network.fareService(false);
+
+    @Test
+    void batchQuotesAndFareTablesPriceLikeSingleQuotes() {
+        List<String> codes = network.stations.stream().map(Station::getCode).toList();
+        for (String from : codes) {
+            List<FareQuote> batch = fareService.calculateFares(from, codes);
+            for (int i = 0; i < codes.size(); i++) {
+                FareQuote single = fareService.calculateFare(from, codes.get(i));
+                String pair = from + " -> " + codes.get(i);
+                assertThat(batch.get(i).getSegments()).as(pair).isEqualTo(single.getSegments());
+                assertThat(batch.get(i).getPrice()).as(pair).isEqualByComparingTo(single.getPrice());
+                assertThat(batch.get(i).getPath()).as(pair).isEqualTo(single.getPath());
+            }
+
+            FareTable table = fareService.fareTable(from);
+            for (FareTable.Entry e : table.getEntries()) {
+                FareQuote single = fareService.calculateFare(from, e.getCode());
+                String pair = from + " -> " + e.getCode();
+                assertThat(e.getSegments()).as(pair).isEqualTo(single.getSegments());
+                assertThat(e.getPrice()).as(pair).isEqualByComparingTo(single.getPrice());
+            }
+        }
+    }
+}
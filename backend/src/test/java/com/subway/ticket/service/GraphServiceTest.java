@@ -0,0 +1,89 @@
+package com.subway.ticket.service;
+
+import com.subway.ticket.bench.HangzhouNetwork;
+import com.subway.ticket.config.GraphProperties;
+import com.subway.ticket.repository.LineMapper;
+import com.subway.ticket.repository.LineStationMapper;
+import com.subway.ticket.repository.StationMapper;
+import com.subway.ticket.service.graph.GraphSnapshotFile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class GraphServiceTest {
+
+    private static final HangzhouNetwork NETWORK = new HangzhouNetwork("off");
+
+    private final LineMapper lineMapper = mock(LineMapper.class);
+    private final StationMapper stationMapper = mock(StationMapper.class);
+    private final LineStationMapper lineStationMapper = mock(LineStationMapper.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @TempDir
+    Path dir;
+
+    GraphServiceTest() {
+        when(lineMapper.selectList(any())).thenReturn(NETWORK.lines);
+        when(stationMapper.selectList(any())).thenReturn(NETWORK.stations);
+        when(lineStationMapper.selectList(any())).thenReturn(NETWORK.lineStations);
+    }
+
+    @Test
+    void rowsFromTheSnapshotFileAreReadAgainBeforeAChangeIsApplied() throws IOException {
+        GraphService service = serviceWithFile("fp-file");
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class))).thenReturn("fp-mysql");
+
+        service.initGraph();
+        assertThat(service.snapshot().fingerprint()).isEqualTo("fp-file");
+        verifyNoInteractions(lineMapper);
+
+        // Unconfirmed file rows: the change is applied by reading all three tables
+        service.applyNetworkChange(List.of(), List.of(), Map.of());
+        assertThat(service.snapshot().fingerprint()).isEqualTo("fp-mysql");
+        verify(lineMapper, times(1)).selectList(any());
+
+        // Now the rows came from MySQL and the next change is applied on top of them
+        service.applyNetworkChange(List.of(), List.of(), Map.of());
+        verify(lineMapper, times(1)).selectList(any());
+    }
+
+    @Test
+    void matchingFingerprintConfirmsTheSnapshotFile() throws IOException {
+        GraphService service = serviceWithFile("fp-1");
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class))).thenReturn("fp-1");
+
+        service.initGraph();
+        service.reloadIfChanged();
+        long version = service.snapshot().version();
+        service.applyNetworkChange(List.of(), List.of(), Map.of());
+
+        verifyNoInteractions(lineMapper);
+        assertThat(service.snapshot().version()).isEqualTo(version + 1);
+    }
+
+    private GraphService serviceWithFile(String fingerprint) throws IOException {
+        Path file = dir.resolve("graph.snapshot");
+        GraphSnapshotFile.write(file, fingerprint, NETWORK.lines, NETWORK.stations, NETWORK.lineStations);
+        GraphProperties props = new GraphProperties();
+        props.getAllPairs().setMode("off");
+        props.setSnapshotFile(file.toString());
+        return new GraphService(stationMapper, lineStationMapper, lineMapper, jdbcTemplate, event -> { }, props,
+                new SimpleMeterRegistry());
+    }
+}
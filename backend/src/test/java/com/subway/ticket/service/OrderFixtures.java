@@ -0,0 +1,34 @@
+package com.subway.ticket.service;
+
+import com.subway.ticket.domain.Order;
+import com.subway.ticket.domain.QrcodeToken;
+import com.subway.ticket.domain.enums.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * The paid order and its QR token that the issuance tests race gates on.
+ */
+public final class OrderFixtures {
+
+    public static final long ORDER_ID = 7L;
+    public static final long TOKEN_ID = 70L;
+
+    private OrderFixtures() {
+    }
+
+    public static Order paidOrder() {
+        Order o = new Order();
+        o.setId(ORDER_ID);
+        o.setStatus(OrderStatus.PAID);
+        return o;
+    }
+
+    public static QrcodeToken token() {
+        QrcodeToken t = new QrcodeToken();
+        t.setId(TOKEN_ID);
+        t.setOrderId(ORDER_ID);
+        t.setExpiresAt(LocalDateTime.now().plusMinutes(15));
+        return t;
+    }
+}
@@ -0,0 +1,99 @@
+package com.subway.ticket.service;
+
+import com.subway.ticket.domain.Order;
+import com.subway.ticket.domain.Payment;
+import com.subway.ticket.domain.Ticket;
+import com.subway.ticket.domain.enums.OrderStatus;
+import com.subway.ticket.exception.BusinessException;
+import com.subway.ticket.repository.PaymentMapper;
+import com.subway.ticket.repository.TicketMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+
+import static com.subway.ticket.service.OrderFixtures.ORDER_ID;
+import static com.subway.ticket.service.OrderFixtures.TOKEN_ID;
+import static com.subway.ticket.service.OrderFixtures.paidOrder;
+import static com.subway.ticket.service.OrderFixtures.token;
+import static com.subway.ticket.service.OrderStateMachine.TRANSITION_SQL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class OrderStateMachineTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PaymentMapper paymentMapper = mock(PaymentMapper.class);
+    private final TicketMapper ticketMapper = mock(TicketMapper.class);
+    private final OrderStateMachine stateMachine = new OrderStateMachine(jdbcTemplate, paymentMapper, ticketMapper);
+
+    @Test
+    void transitionIsOneUpdateConditionalOnTheCurrentStatus() {
+        // The database compares and sets; a read followed by a write would let two gates win
+        assertThat(TRANSITION_SQL).isEqualTo(
+                "UPDATE orders SET status = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ? AND status = ?");
+    }
+
+    @Test
+    void issueMovesPaidToCompletedAndWritesTheTicket() {
+        when(jdbcTemplate.update(TRANSITION_SQL, "COMPLETED", ORDER_ID, "PAID")).thenReturn(1);
+        Order order = paidOrder();
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(stateMachine.issue(order, token(), now)).isTrue();
+
+        verify(jdbcTemplate).update(TRANSITION_SQL, "COMPLETED", ORDER_ID, "PAID");
+        verifyNoMoreInteractions(jdbcTemplate);
+        ArgumentCaptor<Ticket> ticket = ArgumentCaptor.forClass(Ticket.class);
+        verify(ticketMapper).insert(ticket.capture());
+        assertThat(ticket.getValue().getOrderId()).isEqualTo(ORDER_ID);
+        assertThat(ticket.getValue().getQrcodeTokenId()).isEqualTo(TOKEN_ID);
+        assertThat(ticket.getValue().getIssuedAt()).isEqualTo(now);
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.COMPLETED);
+    }
+
+    @Test
+    void issueThatMatchesNoPaidRowWritesNothing() {
+        // Another gate moved the order first, or it was never paid
+        when(jdbcTemplate.update(TRANSITION_SQL, "COMPLETED", ORDER_ID, "PAID")).thenReturn(0);
+        Order order = paidOrder();
+
+        assertThat(stateMachine.issue(order, token(), LocalDateTime.now())).isFalse();
+
+        verify(ticketMapper, never()).insert(any(Ticket.class));
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.PAID);
+    }
+
+    @Test
+    void payMovesCreatedToPaidOnce() {
+        Order order = paidOrder();
+        order.setStatus(OrderStatus.CREATED);
+        when(jdbcTemplate.update(TRANSITION_SQL, "PAID", ORDER_ID, "CREATED")).thenReturn(1, 0);
+
+        Payment payment = stateMachine.pay(order, "WECHAT");
+        assertThat(payment.getOrderId()).isEqualTo(ORDER_ID);
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.PAID);
+        verify(paymentMapper).insert(payment);
+
+        assertThatThrownBy(() -> stateMachine.pay(order, "WECHAT"))
+                .isInstanceOf(BusinessException.class)
+                .extracting("code").isEqualTo("ORDER_NOT_PAYABLE");
+        verifyNoMoreInteractions(paymentMapper);
+    }
+
+    @Test
+    void rejectsTransitionsOutsideTheLifecycle() {
+        assertThatThrownBy(() -> stateMachine.transition(ORDER_ID, OrderStatus.CREATED, OrderStatus.COMPLETED))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> stateMachine.transition(ORDER_ID, OrderStatus.COMPLETED, OrderStatus.PAID))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+}
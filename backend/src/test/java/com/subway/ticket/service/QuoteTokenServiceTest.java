@@ -0,0 +1,105 @@
+package com.subway.ticket.service;
+
+import com.subway.ticket.config.FareProperties;
+import com.subway.ticket.config.GraphProperties;
+import com.subway.ticket.dto.FareQuote;
+import com.subway.ticket.exception.BusinessException;
+import com.subway.ticket.service.fare.FareEngine;
+import com.subway.ticket.service.fare.FareSchedule;
+import com.subway.ticket.service.graph.CompactGraph;
+import com.subway.ticket.service.graph.GraphSnapshot;
+import com.subway.ticket.service.graph.SearchAlgorithm;
+import com.subway.ticket.service.graph.StationDirectory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QuoteTokenServiceTest {
+
+    private final QrSignService signService = new QrSignService("test-secret", new SimpleMeterRegistry());
+    private final QuoteTokenService tokens = new QuoteTokenService(signService, 300);
+
+    @Test
+    void roundTripsTheBasis() {
+        FareQuote.Basis basis = new FareQuote.Basis(11, 42, 500, "0123456789abcdef", "cafebabe");
+        QuoteTokenService.Claims claims = tokens.verify(tokens.issue(quote(basis, 17)));
+
+        assertThat(claims.basis()).isEqualTo(basis);
+        assertThat(claims.segments()).isEqualTo(17);
+        assertThat(tokens.isExpired(claims)).isFalse();
+    }
+
+    @Test
+    void rejectsTamperedTokens() {
+        String token = tokens.issue(quote(new FareQuote.Basis(11, 42, 500, "0123456789abcdef", "cafebabe"), 17));
+        String cheaper = token.replace(".500.", ".100.");
+        QuoteTokenService otherKey = new QuoteTokenService(new QrSignService("other-secret", new SimpleMeterRegistry()), 300);
+
+        assertThat(cheaper).isNotEqualTo(token);
+        assertInvalid(() -> tokens.verify(cheaper));
+        assertInvalid(() -> tokens.verify(token.substring(0, token.length() - 2)));
+        assertInvalid(() -> otherKey.verify(token));
+        assertInvalid(() -> tokens.verify("q1.not-a-token"));
+    }
+
+    @Test
+    void reportsExpiredTokens() {
+        QuoteTokenService expired = new QuoteTokenService(signService, -1);
+        String token = expired.issue(quote(new FareQuote.Basis(11, 42, 500, "0123456789abcdef", "cafebabe"), 17));
+
+        assertThat(expired.isExpired(expired.verify(token))).isTrue();
+    }
+
+    @Test
+    void acceptsOnlyTheSameNetworkAndTariff() {
+        FareProperties props = new FareProperties();
+        props.setBasePrice(new BigDecimal("2.00"));
+        FareSchedule schedule = FareSchedule.fromProperties(props);
+        String tariff = schedule.tariffs().getFirst().version();
+        GraphService graphService = mock(GraphService.class);
+        FareEngine fareEngine = mock(FareEngine.class);
+        when(fareEngine.schedule()).thenReturn(schedule);
+        FareService fareService = new FareService(graphService, fareEngine, new GraphProperties(),
+                new SimpleMeterRegistry(), false, 0);
+
+        when(graphService.snapshot()).thenReturn(snapshot(3, "network-a"));
+        FareQuote.Basis basis = new FareQuote.Basis(11, 42, 200, snapshot(3, "network-a").networkTag(), tariff);
+        assertThat(fareService.isCurrent(basis)).isTrue();
+
+        // A restart or another instance rebuilds the same network under a different local version
+        when(graphService.snapshot()).thenReturn(snapshot(1, "network-a"));
+        assertThat(fareService.isCurrent(basis)).isTrue();
+
+        // Same local version, different network
+        when(graphService.snapshot()).thenReturn(snapshot(3, "network-b"));
+        assertThat(fareService.isCurrent(basis)).isFalse();
+
+        when(graphService.snapshot()).thenReturn(snapshot(3, "network-a"));
+        assertThat(fareService.isCurrent(new FareQuote.Basis(11, 42, 200, basis.networkTag(), "00000000"))).isFalse();
+    }
+
+    private static FareQuote quote(FareQuote.Basis basis, int segments) {
+        FareQuote quote = new FareQuote("A", "B", segments, FareSchedule.yuan(basis.cents()), "HANGZHOU_RULE",
+                null, null);
+        quote.setBasis(basis);
+        return quote;
+    }
+
+    private static GraphSnapshot snapshot(long version, String fingerprint) {
+        return new GraphSnapshot(version, fingerprint, CompactGraph.empty(), StationDirectory.empty(), Map.of(),
+                null, SearchAlgorithm.DIJKSTRA, null);
+    }
+
+    private static void assertInvalid(Runnable verify) {
+        assertThatThrownBy(verify::run)
+                .isInstanceOf(BusinessException.class)
+                .extracting("code").isEqualTo("QUOTE_INVALID");
+    }
+}
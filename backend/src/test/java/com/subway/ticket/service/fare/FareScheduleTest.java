@@ -0,0 +1,150 @@
+package com.subway.ticket.service.fare;
+
+import com.subway.ticket.bench.HangzhouNetwork;
+import com.subway.ticket.config.FareProperties;
+import com.subway.ticket.domain.FareRule;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FareScheduleTest {
+
+    private static final FareProperties YAML = new HangzhouNetwork("off").fareProperties;
+
+    @Test
+    void yamlTariffReproducesTheHangzhouPrices() {
+        // Below the precomputed table and past it, where the formula answers directly
+        for (int tableSegments : new int[]{128, 10}) {
+            FareProperties props = yaml();
+            props.setTableSegments(tableSegments);
+            Tariff standard = FareSchedule.fromProperties(props).tariffs().getFirst();
+            for (int segments = 0; segments <= 60; segments++) {
+                assertThat(standard.cents(segments)).as("%d segments", segments).isEqualTo(baseline(segments));
+            }
+        }
+    }
+
+    @Test
+    void ruleRowsChargeTheBasePriceThenPerSegment() {
+        FareRule standard = rule("standard", "3.00", "0.50", 4, null, null, null);
+        FareSchedule schedule = FareSchedule.fromRules(List.of(standard), YAML);
+        Tariff tariff = schedule.tariffs().getFirst();
+
+        assertThat(schedule.tariffs()).hasSize(1);
+        assertThat(tariff.cents(0)).isEqualTo(300);
+        assertThat(tariff.cents(4)).isEqualTo(300);
+        assertThat(tariff.cents(5)).isEqualTo(350);
+        assertThat(tariff.cents(12)).isEqualTo(700);
+    }
+
+    @Test
+    void ruleRowsWithoutAnAllDayRowFallBackToTheYamlPrices() {
+        FareRule night = rule("night", "1.00", "0.10", 2, "DAILY", "22:00", "06:00");
+        FareSchedule schedule = FareSchedule.fromRules(List.of(night), YAML);
+        ZoneId zone = schedule.zone();
+
+        assertThat(schedule.tariffs()).extracting(Tariff::name).containsExactly("night", "standard");
+        Tariff evening = schedule.tariffAt(ZonedDateTime.of(2026, 10, 16, 23, 0, 0, 0, zone));
+        Tariff noon = schedule.tariffAt(ZonedDateTime.of(2026, 10, 16, 12, 0, 0, 0, zone));
+        assertThat(evening.name()).isEqualTo("night");
+        assertThat(evening.cents(5)).isEqualTo(130);
+        assertThat(noon.name()).isEqualTo("standard");
+        assertThat(noon.cents(5)).isEqualTo(baseline(5));
+    }
+
+    @Test
+    void windowPastMidnightBelongsToTheDayItStarted() {
+        Tariff friday = new Tariff("late", Set.of(DayOfWeek.FRIDAY), LocalTime.of(22, 0), LocalTime.of(2, 0),
+                new Tariff.Formula(new int[0], new int[0], 0, 0, 0, 0, 100, 100), 1);
+
+        assertThat(friday.appliesAt(DayOfWeek.FRIDAY, LocalTime.of(22, 0))).isTrue();
+        assertThat(friday.appliesAt(DayOfWeek.FRIDAY, LocalTime.of(23, 59))).isTrue();
+        assertThat(friday.appliesAt(DayOfWeek.SATURDAY, LocalTime.of(1, 59))).isTrue();
+        assertThat(friday.appliesAt(DayOfWeek.SATURDAY, LocalTime.of(2, 0))).isFalse();
+        assertThat(friday.appliesAt(DayOfWeek.FRIDAY, LocalTime.of(1, 0))).isFalse();
+        assertThat(friday.appliesAt(DayOfWeek.SATURDAY, LocalTime.of(23, 0))).isFalse();
+        assertThat(friday.appliesAt(DayOfWeek.FRIDAY, LocalTime.of(12, 0))).isFalse();
+    }
+
+    @Test
+    void parsesDayNamesAndGroups() {
+        FareProperties props = yamlWith(tariff("mixed", List.of("mon", "Wednesday", " FRI "), "10:00", "16:00"));
+        Tariff mixed = FareSchedule.fromProperties(props).tariffs().getFirst();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            boolean expected = day == DayOfWeek.MONDAY || day == DayOfWeek.WEDNESDAY || day == DayOfWeek.FRIDAY;
+            assertThat(mixed.appliesAt(day, LocalTime.NOON)).as(day.name()).isEqualTo(expected);
+        }
+
+        FareRule row = rule("weekend", "1.00", "0.10", 2, "weekend,thu", "10:00", "16:00");
+        Tariff weekend = FareSchedule.fromRules(List.of(row), YAML).tariffs().getFirst();
+        assertThat(weekend.appliesAt(DayOfWeek.THURSDAY, LocalTime.NOON)).isTrue();
+        assertThat(weekend.appliesAt(DayOfWeek.SATURDAY, LocalTime.NOON)).isTrue();
+        assertThat(weekend.appliesAt(DayOfWeek.SUNDAY, LocalTime.NOON)).isTrue();
+        assertThat(weekend.appliesAt(DayOfWeek.FRIDAY, LocalTime.NOON)).isFalse();
+    }
+
+    @Test
+    void rejectsUnknownDayNames() {
+        assertThatThrownBy(() -> FareSchedule.fromProperties(yamlWith(tariff("x", List.of("mo"), null, null))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FareSchedule.fromProperties(yamlWith(tariff("x", List.of("funday"), null, null))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Hangzhou metro: 2/3/4/5/6 yuan up to 2/4/7/12/16 segments, then one more yuan per 4
+    private static int baseline(int segments) {
+        if (segments <= 2) return 200;
+        if (segments <= 4) return 300;
+        if (segments <= 7) return 400;
+        if (segments <= 12) return 500;
+        if (segments <= 16) return 600;
+        return 600 + 100 * ((segments - 16 + 3) / 4);
+    }
+
+    // The application.yml prices without its source and tariffs, so tests can adjust a copy
+    private static FareProperties yaml() {
+        FareProperties props = new FareProperties();
+        props.setBasePrice(YAML.getBasePrice());
+        props.setRules(YAML.getRules());
+        props.setExtra(YAML.getExtra());
+        props.setZone(YAML.getZone());
+        return props;
+    }
+
+    private static FareProperties yamlWith(FareProperties.Tariff tariff) {
+        FareProperties props = yaml();
+        props.setTariffs(List.of(tariff));
+        return props;
+    }
+
+    private static FareProperties.Tariff tariff(String name, List<String> days, String start, String end) {
+        FareProperties.Tariff t = new FareProperties.Tariff();
+        t.setName(name);
+        t.setDays(days);
+        t.setStart(start);
+        t.setEnd(end);
+        return t;
+    }
+
+    private static FareRule rule(String name, String base, String perSegment, Integer baseSegments,
+                                 String dayType, String start, String end) {
+        FareRule r = new FareRule();
+        r.setRuleType(name);
+        r.setBasePrice(new BigDecimal(base));
+        r.setPerSegmentPrice(new BigDecimal(perSegment));
+        r.setBaseSegments(baseSegments);
+        r.setDayType(dayType);
+        r.setStartTime(start != null ? LocalTime.parse(start) : null);
+        r.setEndTime(end != null ? LocalTime.parse(end) : null);
+        return r;
+    }
+}
@@ -0,0 +1,34 @@
+package com.subway.ticket.service.graph;
+
+import com.subway.ticket.bench.HangzhouNetwork;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AllPairsTableTest {
+
+    @Test
+    void lookupsMatchDijkstraForEveryBundledPair() {
+        CompactGraph graph = new HangzhouNetwork("off").snapshot().graph();
+        AllPairsTable table = AllPairsTable.build(graph, ForkJoinPool.commonPool());
+        String[] names = graph.stationNames();
+
+        for (String from : names) {
+            for (String to : names) {
+                PathResult expected = graph.findPath(graph.nodesByName(from), graph.nodesByName(to));
+                PathResult actual = table.lookup(from, to);
+                String pair = from + " -> " + to;
+                if (expected == null) {
+                    assertThat(actual).as(pair).isNull();
+                    continue;
+                }
+                assertThat(actual).as(pair).isNotNull();
+                assertThat(actual.cost).as(pair).isEqualTo(expected.cost);
+                assertThat(actual.distance).as(pair).isEqualTo(expected.distance);
+                assertThat(actual.path).as(pair).containsExactly(expected.path);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.subway.ticket.service.graph;
+
+import com.subway.ticket.bench.HangzhouNetwork;
+import com.subway.ticket.service.fare.FareSchedule;
+import com.subway.ticket.service.fare.Tariff;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactGraphTest {
+
+    private static final HangzhouNetwork NETWORK = new HangzhouNetwork("off");
+    private static final CompactGraph HANGZHOU = NETWORK.snapshot().graph();
+
+    // from, to, segments, transfers, price in cents; checked against the line station lists
+    private static final Object[][] KNOWN_TRIPS = {
+            {"湘湖", "滨康路", 1, 0, 200},
+            {"武林广场", "火车东站", 4, 0, 300},
+            {"湘湖", "城站", 7, 0, 400},
+            {"湘湖", "火车东站", 15, 0, 600},
+            {"湘湖", "萧山国际机场", 19, 1, 700},
+            {"湘湖", "火车西站", 20, 1, 700},
+            {"城站", "城站", 0, 0, 200},
+    };
+
+    @Test
+    void pooledWorkspacesAnswerRepeatedQueriesAlike() {
+        Tariff standard = FareSchedule.fromProperties(NETWORK.fareProperties).tariffs().getFirst();
+        // Start the pooled workspaces just below the epoch wrap so the reset runs mid-loop
+        SearchWorkspace a = HANGZHOU.acquire();
+        SearchWorkspace b = HANGZHOU.acquire();
+        a.epoch = Integer.MAX_VALUE - 50;
+        b.epoch = Integer.MAX_VALUE - 50;
+        HANGZHOU.release(a);
+        HANGZHOU.release(b);
+
+        for (int round = 0; round < 100; round++) {
+            for (Object[] trip : KNOWN_TRIPS) {
+                String pair = trip[0] + " -> " + trip[1] + " (round " + round + ")";
+                PathResult r = HANGZHOU.findPath(HANGZHOU.nodesByName((String) trip[0]),
+                        HANGZHOU.nodesByName((String) trip[1]));
+                assertThat(r).as(pair).isNotNull();
+                assertThat(r.distance).as(pair).isEqualTo(trip[2]);
+                assertThat(HANGZHOU.transfers(r.path)).as(pair).isEqualTo(trip[3]);
+                assertThat(standard.cents(r.distance)).as(pair).isEqualTo(trip[4]);
+                assertThat(HANGZHOU.name(r.path[0])).as(pair).isEqualTo(trip[0]);
+                assertThat(HANGZHOU.name(r.path[r.path.length - 1])).as(pair).isEqualTo(trip[1]);
+            }
+        }
+        assertThat(a.epoch).isLessThan(Integer.MAX_VALUE - 50);
+    }
+
+    @Test
+    void aStarAndBidirectionalMatchDijkstraForEveryBundledPair() {
+        assertThat(HANGZHOU.hasCoordinates()).isTrue();
+        String[] names = HANGZHOU.stationNames();
+
+        for (String from : names) {
+            int[] start = HANGZHOU.nodesByName(from);
+            for (String to : names) {
+                int[] end = HANGZHOU.nodesByName(to);
+                PathResult expected = HANGZHOU.findPath(start, end);
+                assertSamePath(from + " -> " + to + " (A*)", HANGZHOU.findPathAStar(start, end), expected);
+                assertSamePath(from + " -> " + to + " (bidirectional)",
+                        HANGZHOU.findPathBidirectional(start, end), expected);
+            }
+        }
+    }
+
+    @Test
+    void goalDirectedSearchesSettleFewerNodesAcrossTheCity() {
+        // Southern end of line 1 to the western end of line 19
+        int[] start = HANGZHOU.nodesByName("湘湖");
+        int[] end = HANGZHOU.nodesByName("火车西站");
+
+        PathResult dijkstra = HANGZHOU.findPath(start, end);
+        PathResult aStar = HANGZHOU.findPathAStar(start, end);
+        PathResult bidirectional = HANGZHOU.findPathBidirectional(start, end);
+
+        assertThat(dijkstra).isNotNull();
+        assertThat(aStar.settled).isLessThan(dijkstra.settled);
+        assertThat(bidirectional.settled).isLessThan(dijkstra.settled);
+    }
+
+    private static void assertSamePath(String pair, PathResult actual, PathResult expected) {
+        if (expected == null) {
+            assertThat(actual).as(pair).isNull();
+            return;
+        }
+        assertThat(actual).as(pair).isNotNull();
+        assertThat(actual.cost).as(pair).isEqualTo(expected.cost);
+        assertThat(actual.distance).as(pair).isEqualTo(expected.distance);
+        assertThat(actual.path).as(pair).containsExactly(expected.path);
+    }
+}
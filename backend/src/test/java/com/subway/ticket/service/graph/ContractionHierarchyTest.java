@@ -0,0 +1,46 @@
+package com.subway.ticket.service.graph;
+
+import com.subway.ticket.bench.HangzhouNetwork;
+import com.subway.ticket.bench.SyntheticNetwork;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContractionHierarchyTest {
+
+    @Test
+    void matchesDijkstraForEveryBundledPair() {
+        assertMatchesDijkstra(new HangzhouNetwork("off").snapshot().graph());
+    }
+
+    @Test
+    void matchesDijkstraOnAGeneratedGrid() {
+        // Far more transfer hubs than the bundled network, so witness searches run into their
+        // settle limit and shortcuts nest deeper before they are unpacked
+        assertMatchesDijkstra(new SyntheticNetwork(40, 30, 7).snapshot().graph());
+    }
+
+    private static void assertMatchesDijkstra(CompactGraph graph) {
+        ContractionHierarchy ch = ContractionHierarchy.build(graph);
+        assertThat(ch.shortcutCount()).isPositive();
+        String[] names = graph.stationNames();
+
+        for (String from : names) {
+            int[] start = graph.nodesByName(from);
+            for (String to : names) {
+                int[] end = graph.nodesByName(to);
+                PathResult expected = graph.findPath(start, end);
+                PathResult actual = ch.findPath(start, end);
+                String pair = from + " -> " + to;
+                if (expected == null) {
+                    assertThat(actual).as(pair).isNull();
+                    continue;
+                }
+                assertThat(actual).as(pair).isNotNull();
+                assertThat(actual.cost).as(pair).isEqualTo(expected.cost);
+                assertThat(actual.distance).as(pair).isEqualTo(expected.distance);
+                assertThat(actual.path).as(pair).containsExactly(expected.path);
+            }
+        }
+    }
+}
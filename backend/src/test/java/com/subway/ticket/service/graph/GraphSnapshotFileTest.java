@@ -0,0 +1,104 @@
+package com.subway.ticket.service.graph;
+
+import com.subway.ticket.bench.HangzhouNetwork;
+import com.subway.ticket.domain.Station;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GraphSnapshotFileTest {
+
+    private static final HangzhouNetwork NETWORK = new HangzhouNetwork("off");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsTheRows() throws IOException {
+        // Nulls must survive as nulls, not as empty strings or zero coordinates
+        Station bare = new Station();
+        bare.setId(999_999L);
+        bare.setName("临时站");
+        bare.setCode("999999");
+        bare.setIsActive(0);
+        List<Station> stations = new ArrayList<>(NETWORK.stations);
+        stations.add(bare);
+        Path file = dir.resolve("graph.snapshot");
+
+        GraphSnapshotFile.write(file, "fp-1", NETWORK.lines, stations, NETWORK.lineStations);
+        GraphSnapshotFile.Contents read = GraphSnapshotFile.read(file);
+
+        assertThat(read.fingerprint()).isEqualTo("fp-1");
+        assertThat(read.lines()).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(NETWORK.lines);
+        assertThat(read.stations()).usingRecursiveFieldByFieldElementComparatorIgnoringFields("lineName", "lineColor")
+                .containsExactlyElementsOf(stations);
+        assertThat(read.lineStations()).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(NETWORK.lineStations);
+        Station last = read.stations().getLast();
+        assertThat(last.getPinyin()).isNull();
+        assertThat(last.getLng()).isNull();
+        assertThat(last.getLineId()).isNull();
+        assertThat(dir.resolve("graph.snapshot.tmp")).doesNotExist();
+    }
+
+    @Test
+    void rejectsAFileThatFailsItsChecksum() throws IOException {
+        Path file = written();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(file, bytes);
+
+        assertThatThrownBy(() -> GraphSnapshotFile.read(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("checksum mismatch");
+    }
+
+    @Test
+    void rejectsTruncatedFiles() throws IOException {
+        Path file = written();
+        byte[] bytes = Files.readAllBytes(file);
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThatThrownBy(() -> GraphSnapshotFile.read(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("truncated");
+
+        Files.write(file, Arrays.copyOf(bytes, 20));
+        assertThatThrownBy(() -> GraphSnapshotFile.read(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("too short");
+    }
+
+    @Test
+    void rejectsOtherFilesAndFormats() throws IOException {
+        Path file = written();
+        byte[] bytes = Files.readAllBytes(file);
+
+        bytes[4] = (byte) (GraphSnapshotFile.FORMAT_VERSION + 1);
+        Files.write(file, bytes);
+        assertThatThrownBy(() -> GraphSnapshotFile.read(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("format");
+
+        bytes[0] = 'X';
+        Files.write(file, bytes);
+        assertThatThrownBy(() -> GraphSnapshotFile.read(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not a graph snapshot file");
+    }
+
+    private Path written() throws IOException {
+        Path file = dir.resolve("graph.snapshot");
+        GraphSnapshotFile.write(file, "fp-1", NETWORK.lines, NETWORK.stations, NETWORK.lineStations);
+        return file;
+    }
+}
@@ -0,0 +1,83 @@
+package com.subway.ticket.service.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndexedMinHeapTest {
+
+    @Test
+    void pollsInKeyOrderAfterDecreaseKey() {
+        IndexedMinHeap heap = new IndexedMinHeap(8);
+        heap.push(0, 50);
+        heap.push(1, 40);
+        heap.push(2, 30);
+        heap.push(3, 20);
+        heap.push(4, 10);
+
+        heap.push(0, 5);
+        // A larger key never raises a queued node
+        heap.push(4, 60);
+        heap.push(2, 15);
+
+        assertThat(heap.size()).isEqualTo(5);
+        List<Integer> order = new ArrayList<>();
+        List<Long> keys = new ArrayList<>();
+        while (!heap.isEmpty()) {
+            keys.add(heap.peekKey());
+            order.add(heap.poll());
+        }
+        assertThat(order).containsExactly(0, 4, 2, 3, 1);
+        assertThat(keys).containsExactly(5L, 10L, 15L, 20L, 40L);
+    }
+
+    @Test
+    void matchesASortedReferenceUnderRandomDecreaseKeys() {
+        int n = 500;
+        Random r = new Random(42);
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+        long[] best = new long[n];
+        for (int v = 0; v < n; v++) {
+            best[v] = 1_000_000 + r.nextInt(1_000_000);
+            heap.push(v, best[v]);
+        }
+        for (int i = 0; i < 5 * n; i++) {
+            int v = r.nextInt(n);
+            long key = r.nextInt(2_000_000);
+            heap.push(v, key);
+            best[v] = Math.min(best[v], key);
+        }
+
+        long last = Long.MIN_VALUE;
+        boolean[] seen = new boolean[n];
+        while (!heap.isEmpty()) {
+            long key = heap.peekKey();
+            int v = heap.poll();
+            assertThat(seen[v]).isFalse();
+            assertThat(key).isEqualTo(best[v]).isGreaterThanOrEqualTo(last);
+            assertThat(heap.contains(v)).isFalse();
+            seen[v] = true;
+            last = key;
+        }
+        for (boolean s : seen) assertThat(s).isTrue();
+    }
+
+    @Test
+    void clearedHeapCanBeReused() {
+        IndexedMinHeap heap = new IndexedMinHeap(4);
+        heap.push(1, 7);
+        heap.push(2, 3);
+        heap.clear();
+
+        assertThat(heap.isEmpty()).isTrue();
+        assertThat(heap.contains(1)).isFalse();
+        heap.push(1, 9);
+        heap.push(3, 4);
+        assertThat(heap.poll()).isEqualTo(3);
+        assertThat(heap.poll()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,93 @@
+package com.subway.ticket.service.graph;
+
+import com.subway.ticket.bench.HangzhouNetwork;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParetoSearchTest {
+
+    private static final int MAX_TRANSFERS = 5;
+    private static final CompactGraph HANGZHOU = new HangzhouNetwork("off").snapshot().graph();
+
+    @Test
+    void frontIsParetoOptimalForEveryBundledPair() {
+        CompactGraph graph = HANGZHOU;
+        String[] names = graph.stationNames();
+        int compared = 0;
+
+        for (String from : names) {
+            int[] start = graph.nodesByName(from);
+            for (String to : names) {
+                int[] end = graph.nodesByName(to);
+                String pair = from + " -> " + to;
+                List<PathResult> front = ParetoSearch.search(graph, start, end, MAX_TRANSFERS);
+                PathResult cheapest = graph.findPath(start, end);
+                if (cheapest == null) {
+                    assertThat(front).as(pair).isEmpty();
+                    continue;
+                }
+                assertThat(front).as(pair).isNotEmpty();
+
+                PathResult previous = null;
+                for (PathResult r : front) {
+                    assertValidRoute(graph, pair, r, start, end);
+                    // The label's round is encoded in its cost; the path must change lines that often
+                    int round = (r.cost - r.distance * graph.costPerStation()) / graph.costPerTransfer();
+                    assertThat(r.cost).as(pair).isEqualTo(r.distance * graph.costPerStation()
+                            + round * graph.costPerTransfer());
+                    assertThat(graph.transfers(r.path)).as(pair).isEqualTo(round);
+                    assertThat(round).as(pair).isLessThanOrEqualTo(MAX_TRANSFERS);
+                    if (previous != null) {
+                        assertThat(graph.transfers(r.path)).as(pair).isGreaterThan(graph.transfers(previous.path));
+                        assertThat(r.distance).as(pair).isLessThan(previous.distance);
+                    }
+                    previous = r;
+                }
+
+                // BALANCED picks the cheapest route of the front, which must be what Dijkstra found
+                if (graph.transfers(cheapest.path) <= MAX_TRANSFERS) {
+                    int balanced = front.stream().mapToInt(r -> r.cost).min().orElseThrow();
+                    assertThat(balanced).as(pair).isEqualTo(cheapest.cost);
+                    compared++;
+                }
+                // No route of the front can need fewer stations than the fewest-station one
+                assertThat(front.getLast().distance).as(pair).isLessThanOrEqualTo(cheapest.distance);
+            }
+        }
+        assertThat(compared).isGreaterThan(names.length * names.length / 2);
+    }
+
+    @Test
+    void roundLimitDropsRoutesWithMoreTransfers() {
+        CompactGraph graph = HANGZHOU;
+        int[] start = graph.nodesByName("湘湖");
+        int[] end = graph.nodesByName("火车西站");
+
+        List<PathResult> direct = ParetoSearch.search(graph, start, end, 0);
+        List<PathResult> oneChange = ParetoSearch.search(graph, start, end, 1);
+
+        assertThat(direct).isEmpty();
+        assertThat(oneChange).isNotEmpty();
+        assertThat(oneChange).allSatisfy(r -> assertThat(graph.transfers(r.path)).isEqualTo(1));
+    }
+
+    private static void assertValidRoute(CompactGraph graph, String pair, PathResult r, int[] start, int[] end) {
+        assertThat(start).as(pair).contains(r.path[0]);
+        assertThat(end).as(pair).contains(r.path[r.path.length - 1]);
+        int riding = 0;
+        for (int i = 0; i + 1 < r.path.length; i++) {
+            int u = r.path[i];
+            int v = r.path[i + 1];
+            boolean adjacent = false;
+            for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                if (graph.target(e) == v) adjacent = true;
+            }
+            assertThat(adjacent).as(pair + ": " + graph.name(u) + " -> " + graph.name(v)).isTrue();
+            if (!graph.isTransfer(u, v)) riding++;
+        }
+        assertThat(riding).as(pair).isEqualTo(r.distance);
+    }
+}
@@ -0,0 +1,73 @@
+package com.subway.ticket.service.graph;
+
+import com.subway.ticket.domain.Station;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StationSearchIndexTest {
+
+    // 西湖文化广场 is a transfer station with a row per line; 西湖东 is closed
+    private final StationSearchIndex index = StationSearchIndex.of(List.of(
+            station(1, 1, "西湖", "XiHu", "West Lake", 1),
+            station(2, 1, "西湖文化广场", "XiHu WenHua GuangChang", "West Lake Cultural Square", 1),
+            station(3, 2, "西湖文化广场", "XiHu WenHua GuangChang", "West Lake Cultural Square", 1),
+            station(4, 1, "湘湖", "XiangHu", "Xianghu", 1),
+            station(5, 3, "星火", "XingHuo", "Xinghuo", 1),
+            station(6, 3, "东西湖", "DongXiHu", "Dongxihu", 1),
+            station(7, 2, "下沙西", "XiaSha Xi", "West Xiasha", 1),
+            station(8, 2, "西湖东", "XiHu Dong", "East West Lake", 0)));
+
+    @Test
+    void ranksExactNameThenPrefixThenSubstring() {
+        assertThat(names(index.search("西湖", 10))).containsExactly("西湖", "西湖文化广场", "东西湖");
+    }
+
+    @Test
+    void ranksPinyinExactThenPrefixThenSubstring() {
+        assertThat(names(index.search("xihu", 10))).containsExactly("西湖", "西湖文化广场", "东西湖");
+        assertThat(names(index.search("XiHu WenHua", 10))).containsExactly("西湖文化广场");
+    }
+
+    @Test
+    void matchesPinyinInitials() {
+        // Exact initials first (shorter names, then id), then initials prefixes, then substrings
+        assertThat(names(index.search("xh", 10))).containsExactly("西湖", "湘湖", "星火", "西湖文化广场", "东西湖");
+        assertThat(names(index.search("xhwh", 10))).containsExactly("西湖文化广场");
+    }
+
+    @Test
+    void matchesEnglishNamesAndSingleCharacters() {
+        assertThat(names(index.search("west lake", 10))).containsExactly("西湖", "西湖文化广场");
+        // Name prefixes before name substrings, shorter names first within each
+        assertThat(names(index.search("西", 10))).containsExactly("西湖", "西湖文化广场", "东西湖", "下沙西");
+    }
+
+    @Test
+    void listsTransferStationsOnceAndSkipsClosedOnes() {
+        assertThat(index.size()).isEqualTo(6);
+        List<Station> hits = index.search("西湖文化", 10);
+        assertThat(hits).singleElement().extracting(Station::getId).isEqualTo(2L);
+        assertThat(names(index.search("西湖东", 10))).isEmpty();
+        assertThat(names(index.search("", 3))).containsExactly("西湖", "西湖文化广场", "湘湖");
+        assertThat(index.search("zzz", 10)).isEmpty();
+    }
+
+    private static List<String> names(List<Station> stations) {
+        return stations.stream().map(Station::getName).toList();
+    }
+
+    private static Station station(long id, long lineId, String name, String pinyin, String enName, int active) {
+        Station s = new Station();
+        s.setId(id);
+        s.setLineId(lineId);
+        s.setName(name);
+        s.setPinyin(pinyin);
+        s.setEnName(enName);
+        s.setCode(String.format("%03d", id));
+        s.setIsActive(active);
+        return s;
+    }
+}
@@ -0,0 +1,123 @@
+package com.subway.ticket.service.issuance;
+
+import com.subway.ticket.config.IssuanceProperties;
+import com.subway.ticket.config.TimeOrderedIdGenerator;
+import com.subway.ticket.domain.Order;
+import com.subway.ticket.domain.enums.OrderStatus;
+import com.subway.ticket.repository.OrderMapper;
+import com.subway.ticket.service.OrderStateMachine;
+import com.subway.ticket.service.QrReplayGuard;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.subway.ticket.service.OrderFixtures.ORDER_ID;
+import static com.subway.ticket.service.OrderFixtures.paidOrder;
+import static com.subway.ticket.service.OrderFixtures.token;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TicketIssuanceServiceTest {
+
+    @TempDir
+    Path journalDir;
+
+    private final OrderStateMachine stateMachine = mock(OrderStateMachine.class);
+    private TicketIssuanceService issuance;
+
+    TicketIssuanceServiceTest() {
+        // The order is PAID in MySQL until the first conditional update moves it
+        when(stateMachine.transition(ORDER_ID, OrderStatus.PAID, OrderStatus.COMPLETED)).thenReturn(true, false);
+    }
+
+    @AfterEach
+    void close() {
+        if (issuance != null) issuance.close();
+    }
+
+    @Test
+    void gateThatReadPaidBeforeTheFlushStillLoses() throws Exception {
+        issuance = service(true);
+        Order paid = paidOrder();
+
+        assertThat(issuance.issue(paid, token())).isTrue();
+        issuance.flush();
+        // The second gate read the same PAID row before the flusher committed COMPLETED
+        assertThat(issuance.issue(paid, token())).isFalse();
+
+        assertThat(issuance.backlog()).isZero();
+        verify(stateMachine, times(1)).transition(ORDER_ID, OrderStatus.PAID, OrderStatus.COMPLETED);
+    }
+
+    @Test
+    void gateOnAnotherInstanceLoses() throws Exception {
+        issuance = service(true);
+        // Another instance already moved the order; its replay guard is not ours
+        when(stateMachine.transition(ORDER_ID, OrderStatus.PAID, OrderStatus.COMPLETED)).thenReturn(false);
+
+        assertThat(issuance.issue(paidOrder(), token())).isFalse();
+        assertThat(issuance.backlog()).isZero();
+    }
+
+    @Test
+    void concurrentGatesDispenseOnce() throws Exception {
+        issuance = service(true);
+        int gates = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(gates);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < gates; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return issuance.issue(paidOrder(), token());
+            }));
+        }
+        start.countDown();
+        int dispensed = 0;
+        for (Future<Boolean> r : results) {
+            if (r.get()) dispensed++;
+        }
+        pool.shutdown();
+
+        assertThat(dispensed).isEqualTo(1);
+        assertThat(issuance.backlog()).isEqualTo(1);
+    }
+
+    @Test
+    void failedSynchronousIssueReleasesTheClaim() throws Exception {
+        when(stateMachine.issue(any(), any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("MySQL down"))
+                .thenReturn(true);
+        issuance = service(false);
+
+        assertThatThrownBy(() -> issuance.issue(paidOrder(), token())).isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(issuance.issue(paidOrder(), token())).isTrue();
+    }
+
+    private TicketIssuanceService service(boolean writeBehind) throws Exception {
+        IssuanceProperties props = new IssuanceProperties();
+        props.setWriteBehind(writeBehind);
+        props.setJournalDir(journalDir.toString());
+        TicketIssuanceService service = new TicketIssuanceService(props, stateMachine, mock(JdbcTemplate.class),
+                mock(PlatformTransactionManager.class), new QrReplayGuard(mock(OrderMapper.class)),
+                new TimeOrderedIdGenerator(0, mock(JdbcTemplate.class)));
+        service.open();
+        return service;
+    }
+}
@@ -1,3 +1,5 @@
+-- Initial schema, identical to Flyway's V1__Initial_Schema.sql. Later changes live only in
+-- backend/src/main/resources/db/migration and are applied by Flyway when the backend starts.
 CREATE TABLE IF NOT EXISTS line (
   id BIGINT PRIMARY KEY AUTO_INCREMENT,
   name VARCHAR(64) NOT NULL,
@@ -4,6 +4,15 @@ export function quoteFare(from, to) {
   return request.get('/fares/quote', { params: { from, to } })
 }
 
+// objective: balanced | transfers | stations | time; alternatives: max number of routes
+export function quoteRoutes(from, to, objective, alternatives) {
+  return request.get('/fares/quote', { params: { from, to, objective, alternatives } })
+}
+
+export function quoteFares(from, to) {
+  return request.post('/fares/quotes', { from, to })
+}
+
 export function createOrder(data) {
   return request.post('/orders', data)
 }
@@ -123,7 +123,8 @@ export function useTicket() {
     if (!fromCode.value || !toCode.value) return false
     loading.value = true
     try {
-      const createRes = await createOrder({ from: fromCode.value, to: toCode.value })
+      // The quote token lets the backend skip pricing the route again; from/to cover an expired token
+      const createRes = await createOrder({ from: fromCode.value, to: toCode.value, quoteToken: quote.value?.quoteToken })
       order.value = createRes.data
       error.value = ''
       return true